@@ -0,0 +1,71 @@
+#!/usr/bin/env bash
+# Startup time and time to first request for each startup mode, from one AOT-processed build.
+#
+#   scripts/startup-benchmark.sh [runs]
+#
+# Every mode starts against the same database, which must already hold the schema (run the
+# standard mode, or the app, once first). Point it elsewhere than the default MySQL host with
+# APP_ARGS, and put a different JDBC driver on the classpath with EXTRA_CLASSPATH, e.g.
+#
+#   EXTRA_CLASSPATH=~/.m2/repository/com/h2database/h2/2.3.232/h2-2.3.232.jar \
+#   APP_ARGS="--spring.datasource.url=jdbc:h2:file:/tmp/userdb --spring.datasource.username=sa \
+#     --spring.datasource.driver-class-name=org.h2.Driver \
+#     --spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect" \
+#   scripts/startup-benchmark.sh 5
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+WORK=target/startup-benchmark
+MAIN=com.example.usercrud.UserCrudApiApplication
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+
+cd "$(dirname "$0")/.."
+mvn -B -q -Paot package -DskipTests
+rm -rf "$WORK"
+"$JAVA" -Djarmode=tools -jar target/user-crud-api-*.jar extract --destination "$WORK" > /dev/null
+CP=$(ls "$WORK"/user-crud-api-*.jar)${EXTRA_CLASSPATH:+:$EXTRA_CLASSPATH}
+APP_ARGS="${APP_ARGS:-} --server.port=$PORT --spring.jpa.show-sql=false"
+
+# CDS training run: refresh the context once, then dump every class loaded so far
+# shellcheck disable=SC2086
+"$JAVA" -XX:ArchiveClassesAtExit="$WORK/app.jsa" -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+    -Dspring.profiles.active=fast-startup -cp "$CP" $MAIN $APP_ARGS > "$WORK/training.log" 2>&1
+
+declare -A MODES=(
+    [1-standard]=""
+    [2-fast-startup]="-Dspring.profiles.active=fast-startup"
+    [3-aot]="-Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup"
+    [4-aot-cds]="-Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup -XX:SharedArchiveFile=$WORK/app.jsa"
+)
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'
+}
+
+printf '%-16s %12s %20s\n' mode started-ms first-request-ms
+for mode in $(printf '%s\n' "${!MODES[@]}" | sort); do
+    started=()
+    first=()
+    for ((run = 1; run <= RUNS; run++)); do
+        log="$WORK/${mode#*-}-$run.log"
+        begin=$(date +%s%N)
+        # shellcheck disable=SC2086
+        "$JAVA" ${MODES[$mode]} -cp "$CP" $MAIN $APP_ARGS > "$log" 2>&1 &
+        pid=$!
+        until curl -sf -o /dev/null "http://localhost:$PORT/api/users?size=1"; do
+            if ! kill -0 "$pid" 2> /dev/null; then
+                echo "${mode#*-} failed to start, see $log" >&2
+                exit 1
+            fi
+            sleep 0.02
+        done
+        first+=($((($(date +%s%N) - begin) / 1000000)))
+        # "Started UserCrudApiApplication in 2.345 seconds" is the context's own view, without JVM boot
+        started+=("$(sed -n 's/.*Started .* in \([0-9.]*\) seconds.*/\1/p' "$log" | awk '{ printf "%d", $1 * 1000 }')")
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+    done
+    printf '%-16s %12s %20s\n' "${mode#*-}" \
+        "$(printf '%s\n' "${started[@]}" | median)" "$(printf '%s\n' "${first[@]}" | median)"
+done
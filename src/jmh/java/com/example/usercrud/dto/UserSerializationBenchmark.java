@@ -0,0 +1,75 @@
+package com.example.usercrud.dto;
+
+import com.example.usercrud.config.JacksonProtobufHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding cost of a user page in each response format the API offers, with and without the
+ * gzip that server.compression applies above its size threshold. Setup prints the encoded
+ * and gzipped byte counts so time and size can be read side by side.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class UserSerializationBenchmark {
+
+    @Param({"1", "20", "100", "1000"})
+    private int size;
+
+    @Param({"json", "smile", "cbor", "protobuf"})
+    private String format;
+
+    private ObjectWriter writer;
+    private UserPageDTO page;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Same defaults Spring Boot applies to the MVC ObjectMapper
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = switch (format) {
+            case "json" -> objectMapper.writer();
+            case "smile" -> objectMapper.copyWith(new SmileFactory()).writer();
+            case "cbor" -> objectMapper.copyWith(new CBORFactory()).writer();
+            case "protobuf" -> new ProtobufMapper().writer(
+                    new JacksonProtobufHttpMessageConverter().schemaFor(UserPageDTO.class).orElseThrow());
+            default -> throw new IllegalArgumentException(format);
+        };
+        List<UserDTO> users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            users.add(new UserDTO((long) i + 1, "User Number " + i, "user" + i + "@example.com", "555" + (1000000 + i)));
+        }
+        page = new UserPageDTO(users, "MTAwMA");
+        System.out.printf("%n%s size=%d: %d bytes, %d gzipped%n",
+                format, size, serializePage().length, serializePageGzip().length);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws IOException {
+        return writer.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializePageGzip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            writer.writeValue(gzip, page);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.usercrud.dto;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class UserValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private UserDTO validUser;
+    private UserDTO invalidUser;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validUser = new UserDTO(null, "John Doe", "john@example.com", "1234567890");
+        invalidUser = new UserDTO(null, "J", "not-an-email", "12345678901234567890");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserDTO>> validateValidUser() {
+        return validator.validate(validUser);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserDTO>> validateInvalidUser() {
+        return validator.validate(invalidUser);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.usercrud.exception;
+
+import com.example.usercrud.controller.UserController;
+import com.example.usercrud.dto.UserDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class ErrorResponseBenchmark {
+
+    private GlobalExceptionHandler handler;
+    private ObjectMapper objectMapper;
+    private ResourceNotFoundException notFound;
+    private MethodArgumentNotValidException invalid;
+
+    @Setup
+    public void setUp() throws Exception {
+        handler = new GlobalExceptionHandler();
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        notFound = new ResourceNotFoundException("User not found with id: 42");
+
+        UserDTO userDTO = new UserDTO(null, "J", "not-an-email", null);
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(userDTO, "userDTO");
+        bindingResult.rejectValue("name", "Size", "Name must be between 2 and 100 characters");
+        bindingResult.rejectValue("email", "Email", "Email should be valid");
+        MethodParameter parameter = new MethodParameter(
+                UserController.class.getMethod("createUser", UserDTO.class), 0);
+        invalid = new MethodArgumentNotValidException(parameter, bindingResult);
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, Object>> notFoundBody() {
+        return handler.handleResourceNotFoundException(notFound);
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, Object>> validationBody() {
+        return handler.handleValidationExceptions(invalid);
+    }
+
+    @Benchmark
+    public byte[] validationBodySerialized() throws Exception {
+        return objectMapper.writeValueAsBytes(handler.handleValidationExceptions(invalid).getBody());
+    }
+}
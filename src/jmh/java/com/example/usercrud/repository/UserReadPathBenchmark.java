@@ -0,0 +1,83 @@
+package com.example.usercrud.repository;
+
+import com.example.usercrud.UserCrudApiApplication;
+import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.entity.User;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity hydration plus mapping versus a constructor-expression projection, against the
+ * in-memory H2 database from the test profile. Both paths run in a read-only transaction,
+ * as UserService does, so the difference is entity bookkeeping and the extra copy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class UserReadPathBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"20", "100", "1000"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp() {
+        context = SpringApplication.run(UserCrudApiApplication.class,
+                "--spring.profiles.active=test",
+                "--spring.main.web-application-type=none",
+                "--spring.jpa.show-sql=false",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark",
+                "--app.email-filter.enabled=false",
+                "--logging.level.root=WARN");
+        userRepository = context.getBean(UserRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        List<User> users = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            users.add(new User("User Number " + i, "user" + i + "@example.com", "555" + (1000000 + i)));
+        }
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class))
+                .executeWithoutResult(status -> userRepository.saveAll(users));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<UserDTO> entityPage() {
+        return readOnly.execute(status -> entityManager
+                .createQuery("select u from User u where u.id > :id order by u.id", User.class)
+                .setParameter("id", 0L)
+                .setMaxResults(pageSize)
+                .getResultStream()
+                .map(user -> new UserDTO(user.getId(), user.getName(), user.getEmail(), user.getPhone(), user.getVersion()))
+                .toList());
+    }
+
+    @Benchmark
+    public List<UserDTO> projectionPage() {
+        return readOnly.execute(status -> userRepository.findDtoPageAfter(0L, Limit.of(pageSize)));
+    }
+}
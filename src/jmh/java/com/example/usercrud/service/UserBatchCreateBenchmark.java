@@ -0,0 +1,76 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.UserCrudApiApplication;
+import com.example.usercrud.dto.BatchResultDTO;
+import com.example.usercrud.dto.UserDTO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The same users written through one createUsers batch versus one createUser call each,
+ * against the in-memory H2 database from the test profile. Every operation inserts size new
+ * users, so the scores compare directly; as with UserCreatePathBenchmark, H2 has no fsync and
+ * MySQL widens the gap by one redo-log flush per avoided commit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class UserBatchCreateBenchmark {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private List<UserDTO> users;
+
+    @Setup
+    public void setUp() {
+        context = SpringApplication.run(UserCrudApiApplication.class,
+                "--spring.profiles.active=test",
+                "--spring.main.web-application-type=none",
+                "--spring.jpa.show-sql=false",
+                "--spring.datasource.url=jdbc:h2:mem:batch-benchmark",
+                "--logging.level.root=WARN");
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // Fresh emails every invocation, so no operation runs into the unique key
+    @Setup(Level.Invocation)
+    public void nextUsers() {
+        users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long n = SEQUENCE.incrementAndGet();
+            users.add(new UserDTO(null, "User Number " + n, "user" + n + "@example.com", null));
+        }
+    }
+
+    @Benchmark
+    public BatchResultDTO batch() {
+        return userService.createUsers(users);
+    }
+
+    @Benchmark
+    public void single(Blackhole blackhole) {
+        for (UserDTO user : users) {
+            blackhole.consume(userService.createUser(user));
+        }
+    }
+}
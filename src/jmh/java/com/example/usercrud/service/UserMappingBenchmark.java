@@ -0,0 +1,29 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.entity.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class UserMappingBenchmark {
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = new User("John Doe", "john@example.com", "1234567890");
+        user.setId(42L);
+    }
+
+    @Benchmark
+    public UserDTO toDTO() {
+        return UserMapper.toDTO(user);
+    }
+}
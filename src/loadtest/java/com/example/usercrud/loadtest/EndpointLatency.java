@@ -0,0 +1,40 @@
+package com.example.usercrud.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and error counts for one operation. Values are nanoseconds from the
+ * request's intended start, so time spent queued behind a slow response is counted against
+ * the requests that waited, not dropped.
+ */
+final class EndpointLatency {
+
+    private final Histogram histogram = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+    private final Map<Integer, LongAdder> errorsByStatus = new ConcurrentHashMap<>();
+
+    // status is an HTTP status, UserWorkload.NO_TARGET, or -1 for a request that never got a response
+    void record(long latencyNanos, int status) {
+        histogram.recordValue(Math.min(latencyNanos, histogram.getHighestTrackableValue()));
+        if (status < 200 || status >= 300) {
+            errorsByStatus.computeIfAbsent(status, key -> new LongAdder()).increment();
+        }
+    }
+
+    Histogram histogram() {
+        return histogram;
+    }
+
+    long errors() {
+        return errorsByStatus.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    Map<Integer, LongAdder> errorsByStatus() {
+        return errorsByStatus;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.usercrud.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Plain-text report laid out for diffing two runs: fixed row order, fixed column widths, and
+ * nothing that changes between identical runs except the measurements. Each operation's full
+ * percentile distribution goes to its own .hgrm file, which HdrHistogram's plotter reads.
+ */
+final class LoadReport {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final LoadTestConfig config;
+    private final Map<Operation, EndpointLatency> latencies;
+    private final long measuredNanos;
+
+    LoadReport(LoadTestConfig config, Map<Operation, EndpointLatency> latencies, long measuredNanos) {
+        this.config = config;
+        this.latencies = latencies;
+        this.measuredNanos = measuredNanos;
+    }
+
+    String write(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Histogram all = new Histogram(3);
+        StringBuilder report = new StringBuilder()
+                .append("# Load test: ").append(config.name()).append('\n')
+                .append(config.describe()).append('\n')
+                .append("latency from: ").append(config.correctsCoordinatedOmission()
+                        ? "intended start (corrected for coordinated omission)"
+                        : "actual send (closed model without pacing; not corrected)").append("\n\n")
+                .append(String.format("%-8s %9s %8s %9s %9s %9s %9s %9s %9s%n",
+                        "op", "count", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Map.Entry<Operation, EndpointLatency> entry : latencies.entrySet()) {
+            Histogram histogram = entry.getValue().histogram();
+            all.add(histogram);
+            report.append(row(entry.getKey().key(), histogram, entry.getValue().errors()));
+            try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve(entry.getKey().key() + ".hgrm")),
+                    false, StandardCharsets.UTF_8)) {
+                histogram.outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+        }
+        long errors = latencies.values().stream().mapToLong(EndpointLatency::errors).sum();
+        report.append(row("all", all, errors));
+
+        Map<String, Long> errorBreakdown = new TreeMap<>();
+        latencies.forEach((operation, latency) -> latency.errorsByStatus().forEach((status, count) ->
+                errorBreakdown.put(operation.key() + " " + describeStatus(status), count.sum())));
+        if (!errorBreakdown.isEmpty()) {
+            report.append("\nerrors:\n");
+            errorBreakdown.forEach((key, count) -> report.append(String.format("  %-24s %d%n", key, count)));
+        }
+
+        Files.writeString(dir.resolve("report.txt"), report, StandardCharsets.UTF_8);
+        return report.toString();
+    }
+
+    private String row(String name, Histogram histogram, long errors) {
+        StringBuilder row = new StringBuilder(String.format("%-8s %9d %8d %9.1f",
+                name, histogram.getTotalCount(), errors, histogram.getTotalCount() * 1e9 / measuredNanos));
+        for (double percentile : PERCENTILES) {
+            row.append(String.format(" %9.2f", histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI));
+        }
+        return row.append(String.format(" %9.2f%n", histogram.getMaxValue() / NANOS_PER_MILLI)).toString();
+    }
+
+    private static String describeStatus(int status) {
+        return switch (status) {
+            case -1 -> "io-error";
+            case UserWorkload.NO_TARGET -> "no-target";
+            default -> "http-" + status;
+        };
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.usercrud.loadtest;
+
+import com.example.usercrud.UserCrudApiApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load generator for the REST API:
+ *
+ * <pre>
+ * mvn -Ploadtest verify -DskipTests -Dloadtest.options="model=open rate=500 duration=60s"
+ * </pre>
+ *
+ * Starts the application on embedded H2 unless url= points at a running instance, seeds users,
+ * drives the operation mix for warmup plus duration, and writes report.txt with one .hgrm
+ * percentile file per operation under report-dir/name.
+ *
+ * <p>The open model schedules requests at a fixed rate and measures each from its scheduled
+ * start. The closed model runs a fixed number of workers; with pacing it measures from each
+ * worker's schedule too, without pacing it can only measure from the actual send, and the
+ * report says so, since a stalled server then silently lowers the offered load.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        ConfigurableApplicationContext application = config.url() == null ? startApplication(config) : null;
+        try {
+            URI baseUrl = application == null
+                    ? URI.create(config.url())
+                    : URI.create("http://localhost:" + ((WebServerApplicationContext) application).getWebServer().getPort());
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            UserWorkload workload = new UserWorkload(client, baseUrl);
+            workload.seed(config.seed());
+
+            Map<Operation, EndpointLatency> latencies = new EnumMap<>(Operation.class);
+            config.mix().forEach((operation, weight) -> {
+                if (weight > 0) {
+                    latencies.put(operation, new EndpointLatency());
+                }
+            });
+            Run run = new Run(config, workload, latencies);
+            long measuredNanos = config.model() == LoadTestConfig.Model.OPEN ? run.open() : run.closed();
+
+            Path reportDir = Path.of(config.reportDir(), config.name());
+            String report = new LoadReport(config, latencies, measuredNanos).write(reportDir);
+            System.out.println(report);
+            System.out.println("Report written to " + reportDir.toAbsolutePath());
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(LoadTestConfig config) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.profiles.active", "test");
+        properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("server.port", "0");
+        // One client address would otherwise be held to the per-client rate limit
+        properties.put("app.admission.enabled", "false");
+        properties.put("logging.level.root", "WARN");
+        properties.putAll(config.appArgs());
+        return SpringApplication.run(UserCrudApiApplication.class, properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new));
+    }
+
+    private static final class Run {
+
+        private final LoadTestConfig config;
+        private final UserWorkload workload;
+        private final Map<Operation, EndpointLatency> latencies;
+        private final Operation[] operations;
+        private final int[] cumulativeWeights;
+
+        private Run(LoadTestConfig config, UserWorkload workload, Map<Operation, EndpointLatency> latencies) {
+            this.config = config;
+            this.workload = workload;
+            this.latencies = latencies;
+            this.operations = latencies.keySet().toArray(Operation[]::new);
+            this.cumulativeWeights = new int[operations.length];
+            int total = 0;
+            for (int i = 0; i < operations.length; i++) {
+                total += config.mix().get(operations[i]);
+                cumulativeWeights[i] = total;
+            }
+        }
+
+        // One virtual thread per request, started on schedule whether or not earlier ones returned
+        long open() {
+            long intervalNanos = (long) (1_000_000_000L / config.rate());
+            long start = System.nanoTime();
+            long measureFrom = start + config.warmup().toNanos();
+            long end = measureFrom + config.duration().toNanos();
+            try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (long intended = start; intended < end; intended += intervalNanos) {
+                    parkUntil(intended);
+                    long scheduled = intended;
+                    Operation operation = nextOperation();
+                    requests.execute(() -> issue(operation, scheduled, scheduled >= measureFrom));
+                }
+            }
+            return end - measureFrom;
+        }
+
+        long closed() {
+            long pacingNanos = config.pacing().toNanos();
+            long start = System.nanoTime();
+            long measureFrom = start + config.warmup().toNanos();
+            long end = measureFrom + config.duration().toNanos();
+            try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int worker = 0; worker < config.concurrency(); worker++) {
+                    // Stagger paced workers across one interval so they do not fire in lockstep
+                    long first = start + (pacingNanos * worker) / config.concurrency();
+                    workers.execute(() -> {
+                        long next = first;
+                        while (true) {
+                            long intended = pacingNanos > 0 ? next : System.nanoTime();
+                            if (intended >= end) {
+                                return;
+                            }
+                            parkUntil(intended);
+                            issue(nextOperation(), intended, intended >= measureFrom);
+                            next += pacingNanos;
+                        }
+                    });
+                }
+            }
+            return end - measureFrom;
+        }
+
+        private void issue(Operation operation, long intendedStart, boolean measured) {
+            int status;
+            try {
+                status = workload.execute(operation);
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (measured) {
+                latencies.get(operation).record(System.nanoTime() - intendedStart, status);
+            }
+        }
+
+        private Operation nextOperation() {
+            int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (pick < cumulativeWeights[i]) {
+                    return operations[i];
+                }
+            }
+            throw new IllegalStateException();
+        }
+
+        private static void parkUntil(long deadline) {
+            for (long remaining = deadline - System.nanoTime(); remaining > 0; remaining = deadline - System.nanoTime()) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+    }
+}
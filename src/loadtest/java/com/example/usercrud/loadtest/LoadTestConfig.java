@@ -0,0 +1,102 @@
+package com.example.usercrud.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Settings for one load-test run, parsed from key=value arguments. Arguments that start with
+ * "--" are passed to the embedded application instead, so the same run can be repeated with,
+ * say, --spring.threads.virtual.enabled=true and the two reports diffed.
+ */
+record LoadTestConfig(String name, Model model, double rate, int concurrency, Duration pacing,
+                      Duration duration, Duration warmup, Map<Operation, Integer> mix, int seed,
+                      String url, String reportDir, Map<String, String> appArgs) {
+
+    enum Model {
+        // Requests arrive at a fixed rate whether or not earlier ones have finished
+        OPEN,
+        // A fixed number of workers, each waiting for its response before the next request
+        CLOSED
+    }
+
+    static final String DEFAULT_MIX = "create=20,get=40,list=20,update=15,delete=5,batch=0";
+
+    private static final Set<String> KEYS = Set.of("name", "model", "rate", "concurrency", "pacing",
+            "duration", "warmup", "mix", "seed", "url", "report-dir");
+
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        Map<String, String> appArgs = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected key=value: " + arg);
+            }
+            String key = arg.substring(0, separator);
+            String value = arg.substring(separator + 1);
+            if (key.startsWith("--")) {
+                appArgs.put(key.substring(2), value);
+            } else {
+                options.put(key, value);
+            }
+        }
+        LoadTestConfig config = new LoadTestConfig(
+                options.getOrDefault("name", "run"),
+                Model.valueOf(options.getOrDefault("model", "open").toUpperCase()),
+                Double.parseDouble(options.getOrDefault("rate", "200")),
+                Integer.parseInt(options.getOrDefault("concurrency", "16")),
+                DurationStyle.detectAndParse(options.getOrDefault("pacing", "0ms")),
+                DurationStyle.detectAndParse(options.getOrDefault("duration", "30s")),
+                DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s")),
+                parseMix(options.getOrDefault("mix", DEFAULT_MIX)),
+                Integer.parseInt(options.getOrDefault("seed", "1000")),
+                options.get("url"),
+                options.getOrDefault("report-dir", "target/loadtest"),
+                appArgs);
+        options.keySet().removeAll(KEYS);
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + options.keySet());
+        }
+        return config;
+    }
+
+    // Latency is only measured from the intended start when there is a schedule to miss
+    boolean correctsCoordinatedOmission() {
+        return model == Model.OPEN || !pacing.isZero();
+    }
+
+    String describe() {
+        StringBuilder description = new StringBuilder("model=").append(model.name().toLowerCase());
+        if (model == Model.OPEN) {
+            description.append(" rate=").append(rate).append("/s");
+        } else {
+            description.append(" concurrency=").append(concurrency).append(" pacing=").append(pacing.toMillis()).append("ms");
+        }
+        description.append(" duration=").append(duration.toSeconds()).append("s")
+                .append(" warmup=").append(warmup.toSeconds()).append("s")
+                .append(" seed=").append(seed)
+                .append("\nmix=");
+        mix.forEach((operation, weight) -> description.append(operation.key()).append('=').append(weight).append(','));
+        description.setLength(description.length() - 1);
+        description.append("\ntarget=").append(url == null ? "embedded H2" : url);
+        appArgs.forEach((key, value) -> description.append(" --").append(key).append('=').append(value));
+        return description.toString();
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split("=");
+            weights.put(Operation.fromKey(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("Mix has no weight: " + mix);
+        }
+        return weights;
+    }
+}
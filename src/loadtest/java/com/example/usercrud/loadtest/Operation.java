@@ -0,0 +1,35 @@
+package com.example.usercrud.loadtest;
+
+import java.util.Arrays;
+
+enum Operation {
+    CREATE("create", "POST /api/users"),
+    GET("get", "GET /api/users/{id}"),
+    LIST("list", "GET /api/users?size=20"),
+    UPDATE("update", "PUT /api/users/{id}"),
+    DELETE("delete", "DELETE /api/users/{id}"),
+    BATCH("batch", "POST /api/users/batch (20 users)");
+
+    private final String key;
+    private final String request;
+
+    Operation(String key, String request) {
+        this.key = key;
+        this.request = request;
+    }
+
+    String key() {
+        return key;
+    }
+
+    String request() {
+        return request;
+    }
+
+    static Operation fromKey(String key) {
+        return Arrays.stream(values())
+                .filter(operation -> operation.key.equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown operation: " + key));
+    }
+}
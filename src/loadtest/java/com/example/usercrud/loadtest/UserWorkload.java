@@ -0,0 +1,155 @@
+package com.example.usercrud.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues one request per operation against the REST API. Gets and updates go to a fixed set of
+ * seeded users that are never deleted; deletes consume users seeded for that purpose or made
+ * by earlier creates, so no operation aims at a row another one has already removed.
+ */
+final class UserWorkload {
+
+    // Sent instead of a status when a delete finds nothing left to delete
+    static final int NO_TARGET = 0;
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int SEED_CHUNK = 500;
+    private static final int BATCH_SIZE = 20;
+
+    // Seeded users keep their email on update so they never collide with one another
+    private record SeededUser(long id, String email) {
+    }
+
+    private final HttpClient client;
+    private final URI users;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Emails stay unique across runs against a database that outlives them
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<SeededUser> stable = new ArrayList<>();
+    private final ConcurrentLinkedQueue<Long> deletable = new ConcurrentLinkedQueue<>();
+
+    UserWorkload(HttpClient client, URI baseUrl) {
+        this.client = client;
+        this.users = baseUrl.resolve("/api/users");
+    }
+
+    // Half the seeded users serve gets and updates, the other half wait to be deleted
+    void seed(int count) throws IOException, InterruptedException {
+        for (int offset = 0; offset < count; offset += SEED_CHUNK) {
+            List<SeededUser> created = createBatch(Math.min(SEED_CHUNK, count - offset));
+            for (int i = 0; i < created.size(); i++) {
+                if ((offset + i) % 2 == 0) {
+                    stable.add(created.get(i));
+                } else {
+                    deletable.add(created.get(i).id());
+                }
+            }
+        }
+        if (stable.isEmpty()) {
+            throw new IllegalStateException("Seeding created no users");
+        }
+    }
+
+    int execute(Operation operation) throws IOException, InterruptedException {
+        return switch (operation) {
+            case CREATE -> {
+                HttpResponse<String> response = send(post(users, newUser()));
+                if (response.statusCode() == 201) {
+                    deletable.add(objectMapper.readTree(response.body()).get("id").asLong());
+                }
+                yield response.statusCode();
+            }
+            case GET -> send(HttpRequest.newBuilder(userUri(randomStable().id())).GET()).statusCode();
+            case LIST -> send(HttpRequest.newBuilder(URI.create(users + "?size=20")).GET()).statusCode();
+            case UPDATE -> {
+                SeededUser user = randomStable();
+                ObjectNode body = objectMapper.createObjectNode()
+                        .put("name", "Load User " + ThreadLocalRandom.current().nextInt(1_000_000))
+                        .put("email", user.email());
+                yield send(HttpRequest.newBuilder(userUri(user.id()))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(body.toString()))).statusCode();
+            }
+            case DELETE -> {
+                Long id = deletable.poll();
+                yield id == null ? NO_TARGET : send(HttpRequest.newBuilder(userUri(id)).DELETE()).statusCode();
+            }
+            case BATCH -> {
+                ArrayNode body = objectMapper.createArrayNode();
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    body.add(newUser());
+                }
+                HttpResponse<String> response = send(post(URI.create(users + "/batch"), body));
+                if (response.statusCode() == 200) {
+                    created(response.body()).forEach(user -> deletable.add(user.id()));
+                }
+                yield response.statusCode();
+            }
+        };
+    }
+
+    private List<SeededUser> createBatch(int size) throws IOException, InterruptedException {
+        ArrayNode body = objectMapper.createArrayNode();
+        for (int i = 0; i < size; i++) {
+            body.add(newUser());
+        }
+        HttpResponse<String> response = send(post(URI.create(users + "/batch"), body));
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Seeding failed with " + response.statusCode() + ": " + response.body());
+        }
+        return created(response.body());
+    }
+
+    private List<SeededUser> created(String body) throws IOException {
+        List<SeededUser> users = new ArrayList<>();
+        for (JsonNode result : objectMapper.readTree(body).get("results")) {
+            if ("CREATED".equals(result.get("status").asText())) {
+                JsonNode user = result.get("user");
+                users.add(new SeededUser(user.get("id").asLong(), user.get("email").asText()));
+            }
+        }
+        return users;
+    }
+
+    private ObjectNode newUser() {
+        long n = sequence.incrementAndGet();
+        return objectMapper.createObjectNode()
+                .put("name", "Load User " + n)
+                .put("email", "load-" + runId + "-" + n + "@example.com")
+                .put("phone", "555" + (1_000_000 + n % 9_000_000));
+    }
+
+    private SeededUser randomStable() {
+        return stable.get(ThreadLocalRandom.current().nextInt(stable.size()));
+    }
+
+    private URI userUri(long id) {
+        return URI.create(users + "/" + id);
+    }
+
+    private HttpRequest.Builder post(URI uri, JsonNode body) {
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
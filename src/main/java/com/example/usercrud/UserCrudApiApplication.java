@@ -1,9 +1,14 @@
 package com.example.usercrud;
 
+import com.example.usercrud.config.UserCrudRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@ImportRuntimeHints(UserCrudRuntimeHints.class)
 public class UserCrudApiApplication {
 
     public static void main(String[] args) {
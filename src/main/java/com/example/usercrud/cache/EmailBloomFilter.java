@@ -0,0 +1,195 @@
+package com.example.usercrud.cache;
+
+import com.example.usercrud.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter over every email in the users table. A negative answer lets batch imports
+ * leave the email out of the existing-email lookup; a positive answer only means "maybe" and
+ * must be confirmed against the database. Entries are never removed, so deleted emails stay
+ * as false positives until the next restart.
+ *
+ * <p>Emails written by other replicas arrive through the invalidation bus, so with the
+ * change-feed bus a negative can be stale by the poll interval.
+ * A batch row that slips through in that window hits uk_users_email and is retried on its own
+ * by UserService, so a stale negative costs a retry, never a wrong answer.
+ */
+@Component
+public class EmailBloomFilter implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailBloomFilter.class);
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final long bitCount;
+    private final int hashFunctions;
+    private final AtomicLongArray bits;
+    private final AtomicLong absentChecks = new AtomicLong();
+    private final AtomicLong maybeChecks = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    // Until the initial load finishes every email is treated as "maybe present"
+    private volatile boolean ready;
+
+    @Autowired
+    public EmailBloomFilter(UserRepository userRepository, UserInvalidationBus bus,
+                            @Value("${app.email-filter.enabled:true}") boolean enabled,
+                            @Value("${app.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${app.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (optimalBits + 63) / 64);
+        this.bitCount = words * 64L;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        this.bits = new AtomicLongArray(enabled ? words : 1);
+        bus.subscribe(this::apply);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        AtomicLong loaded = new AtomicLong();
+        try (Stream<String> emails = userRepository.streamAllEmails()) {
+            emails.forEach(email -> {
+                add(email);
+                loaded.incrementAndGet();
+            });
+        }
+        ready = true;
+        log.info("Email filter loaded {} emails into {} bytes using {} hash functions",
+                loaded.get(), bitCount / 8, hashFunctions);
+    }
+
+    public boolean mightContain(String email) {
+        if (!enabled || !ready) {
+            return true;
+        }
+        long[] hashes = hash(email);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = index(hashes, i);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                absentChecks.incrementAndGet();
+                return false;
+            }
+        }
+        maybeChecks.incrementAndGet();
+        return true;
+    }
+
+    public void add(String email) {
+        if (!enabled) {
+            return;
+        }
+        long[] hashes = hash(email);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = index(hashes, i);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    // Called when a "maybe" answer turned out to be absent in the database
+    public void recordFalsePositive() {
+        if (enabled && ready) {
+            falsePositives.incrementAndGet();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long sizeInBytes() {
+        return bits.length() * 8L;
+    }
+
+    public double expectedFalsePositiveRate() {
+        long set = 0;
+        for (int i = 0; i < bits.length(); i++) {
+            set += Long.bitCount(bits.get(i));
+        }
+        return Math.pow((double) set / (bits.length() * 64L), hashFunctions);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("user.email.filter.size", this, EmailBloomFilter::sizeInBytes)
+                .baseUnit("bytes")
+                .description("Memory held by the email membership filter")
+                .register(registry);
+        Gauge.builder("user.email.filter.false.positive.rate", this, EmailBloomFilter::expectedFalsePositiveRate)
+                .description("False-positive probability estimated from the filter's fill ratio")
+                .register(registry);
+        FunctionCounter.builder("user.email.filter.checks", absentChecks, AtomicLong::get)
+                .tag("result", "absent")
+                .register(registry);
+        FunctionCounter.builder("user.email.filter.checks", maybeChecks, AtomicLong::get)
+                .tag("result", "maybe")
+                .register(registry);
+        FunctionCounter.builder("user.email.filter.false.positives", falsePositives, AtomicLong::get)
+                .description("Maybe answers the database reported as absent")
+                .register(registry);
+    }
+
+    // An invalidation of every user means the bus may have missed writes, new emails among
+    // them, so negatives are no longer trusted until the next load at startup
+    private void apply(UserInvalidation invalidation) {
+        if (invalidation.id() == null) {
+            if (ready) {
+                log.warn("Invalidation bus may have missed writes; email filter answers maybe until restart");
+            }
+            ready = false;
+        } else if (invalidation.email() != null) {
+            add(invalidation.email());
+        }
+    }
+
+    private long index(long[] hashes, int i) {
+        // Kirsch-Mitzenmacher double hashing: h1 + i * h2
+        return Math.floorMod(hashes[0] + i * hashes[1], bitCount);
+    }
+
+    // Emails are compared case-insensitively, matching the MySQL collation on users.email
+    private long[] hash(String email) {
+        byte[] bytes = email.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        long h1 = mix(h);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1L;
+        return new long[]{h1, h2};
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.usercrud.cache;
+
+import com.example.usercrud.dto.BatchResultDTO;
+import com.example.usercrud.exception.BadRequestException;
+import com.example.usercrud.exception.IdempotencyKeyReusedException;
+import com.example.usercrud.exception.ServiceOverloadedException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Responses to writes sent with an Idempotency-Key, so a client retrying after a timeout gets
+ * the first answer back instead of running the write again. A duplicate that arrives while the
+ * first request is still running waits for it and shares its outcome. Only successful responses
+ * are kept: after an error the key is free again and a retry runs the write.
+ *
+ * <p>Keys are scoped to the client that sent them, as ClientIdentity names it, so two clients
+ * that happen to pick the same key neither share responses nor block each other.
+ *
+ * <p>Keys are held by this instance only, bounded by the number of users their responses carry.
+ * A retry that lands on another replica runs again and falls back on the database's own checks,
+ * such as uk_users_email.
+ */
+@Component
+public class IdempotencyStore implements MeterBinder {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private record Scope(String client, String key) {
+    }
+
+    // Weighs nothing while in flight, which Caffeine never evicts, so a duplicate always finds
+    // the running request; the number in flight is bounded by the requests being served.
+    // Afterwards weighed by the users its response carries
+    private record Entry(String fingerprint, CompletableFuture<ResponseEntity<?>> response, int weight) {
+    }
+
+    private final Cache<Scope, Entry> entries;
+    private final ObjectMapper objectMapper;
+    private final Duration inFlightWait;
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Autowired
+    public IdempotencyStore(ObjectMapper objectMapper,
+                            @Value("${app.idempotency.capacity:100000}") long capacity,
+                            @Value("${app.idempotency.expire-after-write:24h}") Duration expireAfterWrite,
+                            @Value("${app.idempotency.in-flight-wait:30s}") Duration inFlightWait) {
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(capacity)
+                .weigher((Scope scope, Entry entry) -> entry.weight())
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        this.objectMapper = objectMapper;
+        this.inFlightWait = inFlightWait;
+    }
+
+    // client is the caller's ClientIdentity; request names the operation, e.g. "POST /api/users",
+    // and together with body it must match the request the key was first sent with
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String client, String key, String request, Object body,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException(HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String fingerprint = fingerprint(request, body);
+        Scope scope = new Scope(client, key);
+        Entry entry = new Entry(fingerprint, new CompletableFuture<>(), 0);
+        Entry existing = entries.asMap().putIfAbsent(scope, entry);
+        if (existing != null) {
+            return (ResponseEntity<T>) replay(existing, fingerprint);
+        }
+
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException | Error e) {
+            entries.asMap().remove(scope, entry);
+            entry.response().completeExceptionally(e);
+            throw e;
+        }
+        entry.response().complete(response);
+        entries.asMap().replace(scope, entry, new Entry(fingerprint, entry.response(), weightOf(response.getBody())));
+        executed.incrementAndGet();
+        return response;
+    }
+
+    public long size() {
+        return entries.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("http.idempotency.keys", this, IdempotencyStore::size)
+                .description("Idempotency keys held with their responses")
+                .register(registry);
+        FunctionCounter.builder("http.idempotency.requests", executed, AtomicLong::get)
+                .tag("result", "executed")
+                .register(registry);
+        FunctionCounter.builder("http.idempotency.requests", replayed, AtomicLong::get)
+                .tag("result", "replayed")
+                .description("Requests answered with, or coalesced onto, an earlier response")
+                .register(registry);
+        FunctionCounter.builder("http.idempotency.requests", rejected, AtomicLong::get)
+                .tag("result", "rejected")
+                .description("Keys reused for a different request")
+                .register(registry);
+    }
+
+    private ResponseEntity<?> replay(Entry existing, String fingerprint) {
+        if (!existing.fingerprint().equals(fingerprint)) {
+            rejected.incrementAndGet();
+            throw new IdempotencyKeyReusedException(HEADER + " was already used for a different request");
+        }
+        ResponseEntity<?> original;
+        try {
+            original = existing.response().get(inFlightWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceOverloadedException("The request with this " + HEADER + " is still in progress; retry later", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException("Interrupted while waiting for the request with this " + HEADER, 1);
+        } catch (ExecutionException e) {
+            // The first request failed; its duplicates fail the same way and the key is free again
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        replayed.incrementAndGet();
+        return ResponseEntity.status(original.getStatusCode())
+                .headers(headers -> {
+                    headers.addAll(original.getHeaders());
+                    headers.set(REPLAYED_HEADER, "true");
+                })
+                .body(original.getBody());
+    }
+
+    private String fingerprint(String request, Object body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(objectMapper.writeValueAsBytes(body));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Could not fingerprint request " + request, e);
+        }
+    }
+
+    private static int weightOf(Object body) {
+        return body instanceof BatchResultDTO batch ? Math.max(1, batch.getResults().size()) : 1;
+    }
+}
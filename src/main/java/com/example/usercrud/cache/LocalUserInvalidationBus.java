@@ -0,0 +1,26 @@
+package com.example.usercrud.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Delivers on the publishing thread to subscribers in this JVM only: one replica, or tests
+@Component
+@ConditionalOnProperty(name = "app.cache.users.invalidation", havingValue = "local", matchIfMissing = true)
+public class LocalUserInvalidationBus implements UserInvalidationBus {
+
+    private final List<Consumer<UserInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(UserInvalidation invalidation) {
+        subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+    }
+
+    @Override
+    public void subscribe(Consumer<UserInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+}
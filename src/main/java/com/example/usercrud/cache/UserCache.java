@@ -0,0 +1,231 @@
+package com.example.usercrud.cache;
+
+import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Per-instance near-cache of users by id and by email. A writer evicts its own entry at once
+ * and publishes an invalidation on the bus once it commits, which every instance applies.
+ *
+ * <p>Each eviction and each applied invalidation leaves a floor for its id. A load that started
+ * before the floor was set, or that read a version below it (say from a lagging replica), is
+ * returned to its caller but not kept, so a late load cannot put back what an invalidation
+ * removed.
+ *
+ * <p>Misses load outside the cache's map. Writers evict while they hold a pooled connection,
+ * and a load held in Caffeine's compute would keep the map bin locked while it waits for a
+ * connection; with every connection held by a writer blocked on that bin, neither side moves.
+ */
+@Component
+public class UserCache implements MeterBinder {
+
+    private record Floor(long version, long setAtNanos) {
+    }
+
+    private final Cache<Long, UserDTO> cache;
+    private final Cache<String, Long> emailIds;
+    private final Cache<Long, Floor> floors;
+    private final UserInvalidationBus bus;
+    private final AtomicLong emailHits = new AtomicLong();
+    private final AtomicLong emailMisses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong skips = new AtomicLong();
+    private final AtomicLong staleLoads = new AtomicLong();
+
+    private volatile Timer invalidationDelay;
+
+    @Autowired
+    public UserCache(@Value("${app.cache.users.maximum-size:10000}") long maximumSize,
+                     @Value("${app.cache.users.expire-after-write:5m}") Duration expireAfterWrite,
+                     UserInvalidationBus bus) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.emailIds = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        // An entry loaded before its floor expired would have expired too
+        this.floors = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        this.bus = bus;
+        bus.subscribe(this::apply);
+    }
+
+    // Concurrent misses may each load; the first to finish is kept
+    public UserDTO get(Long id, Function<Long, UserDTO> loader) {
+        UserDTO cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        long startedAt = System.nanoTime();
+        UserDTO user = loader.apply(id);
+        // Checked after the put: a floor set before it is seen here, and an eviction after it removes it
+        cache.asMap().putIfAbsent(id, user);
+        if (isStale(user, startedAt)) {
+            cache.asMap().remove(id, user);
+        }
+        return user;
+    }
+
+    public UserDTO getIfPresent(Long id) {
+        return cache.getIfPresent(id);
+    }
+
+    // The email only points at an id; the id's entry answers as long as it still has that email
+    public UserDTO getByEmail(String email, Function<String, UserDTO> loader) {
+        String key = User.normalize(email);
+        Long id = emailIds.getIfPresent(key);
+        UserDTO cached = id == null ? null : cache.policy().getIfPresentQuietly(id);
+        if (cached != null && key.equals(User.normalize(cached.getEmail()))) {
+            emailHits.incrementAndGet();
+            return cached;
+        }
+        emailMisses.incrementAndGet();
+        long startedAt = System.nanoTime();
+        UserDTO user = loader.apply(email);
+        if (!isStale(user, startedAt)) {
+            cache.put(user.getId(), user);
+            emailIds.put(key, user.getId());
+        }
+        return user;
+    }
+
+    public void evict(Long id) {
+        evict(id, null, null);
+    }
+
+    // version and email as they are after the write, when known
+    public void evict(Long id, Long version, String email) {
+        raiseFloor(id, Long.MIN_VALUE);
+        cache.invalidate(id);
+        UserInvalidation invalidation = new UserInvalidation(id, version, email, System.currentTimeMillis());
+        // Evict again once the writing transaction completes. The floor set first keeps a
+        // reader that loaded the old row concurrently from leaving it cached after the commit.
+        // Other instances only hear of writes that committed.
+        afterCompletion(committed -> {
+            raiseFloor(id, Long.MIN_VALUE);
+            cache.invalidate(id);
+            if (committed) {
+                bus.publish(invalidation);
+            }
+        });
+    }
+
+    public void evictAll(Collection<Long> ids) {
+        ids.forEach(id -> raiseFloor(id, Long.MIN_VALUE));
+        cache.invalidateAll(ids);
+        long changedAt = System.currentTimeMillis();
+        afterCompletion(committed -> {
+            ids.forEach(id -> raiseFloor(id, Long.MIN_VALUE));
+            cache.invalidateAll(ids);
+            if (committed) {
+                ids.forEach(id -> bus.publish(new UserInvalidation(id, UserInvalidation.DELETED, null, changedAt)));
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "users");
+        FunctionCounter.builder("user.cache.email.gets", emailHits, AtomicLong::get)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("user.cache.email.gets", emailMisses, AtomicLong::get)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("user.cache.invalidations", evictions, AtomicLong::get)
+                .tag("result", "evicted")
+                .description("Invalidations that removed an older cached user")
+                .register(registry);
+        FunctionCounter.builder("user.cache.invalidations", skips, AtomicLong::get)
+                .tag("result", "skipped")
+                .description("Invalidations for users not cached or already cached at that version")
+                .register(registry);
+        FunctionCounter.builder("user.cache.stale.loads", staleLoads, AtomicLong::get)
+                .description("Loads served but not cached because an invalidation overtook them")
+                .register(registry);
+        invalidationDelay = Timer.builder("user.cache.invalidation.delay")
+                .description("Time from a committed write to its invalidation reaching this instance, "
+                        + "the longest another instance's copy can stay stale")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    private void apply(UserInvalidation invalidation) {
+        Timer delay = invalidationDelay;
+        if (delay != null) {
+            delay.record(Math.max(0, System.currentTimeMillis() - invalidation.changedAtMillis()), TimeUnit.MILLISECONDS);
+        }
+        if (invalidation.id() == null) {
+            evictions.addAndGet(cache.estimatedSize());
+            cache.invalidateAll();
+            emailIds.invalidateAll();
+            return;
+        }
+        Long id = invalidation.id();
+        raiseFloor(id, invalidation.version() == null ? Long.MIN_VALUE : invalidation.version());
+        if (invalidation.email() != null) {
+            emailIds.invalidate(User.normalize(invalidation.email()));
+        }
+        UserDTO cached = cache.policy().getIfPresentQuietly(id);
+        if (cached != null && (invalidation.version() == null || cached.getVersion() == null
+                || cached.getVersion() < invalidation.version())) {
+            cache.asMap().remove(id, cached);
+            evictions.incrementAndGet();
+        } else {
+            skips.incrementAndGet();
+        }
+    }
+
+    private void raiseFloor(Long id, long version) {
+        floors.asMap().merge(id, new Floor(version, System.nanoTime()),
+                (older, newer) -> new Floor(Math.max(older.version(), newer.version()), newer.setAtNanos()));
+    }
+
+    private boolean isStale(UserDTO user, long loadStartedAt) {
+        Floor floor = floors.getIfPresent(user.getId());
+        boolean stale = floor != null && (floor.setAtNanos() - loadStartedAt > 0
+                || (user.getVersion() != null && user.getVersion() < floor.version()));
+        if (stale) {
+            staleLoads.incrementAndGet();
+        }
+        return stale;
+    }
+
+    private static void afterCompletion(Consumer<Boolean> outcome) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            outcome.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                outcome.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.usercrud.cache;
+
+/**
+ * A committed write to one user. version is the row version after the write, DELETED for a
+ * delete, or null when the writer did not learn it; email is the user's email after the write,
+ * if known. A null id invalidates every cached user, for a receiver that may have missed some.
+ */
+public record UserInvalidation(Long id, Long version, String email, long changedAtMillis) {
+
+    public static final long DELETED = Long.MAX_VALUE;
+
+    public static UserInvalidation all() {
+        return new UserInvalidation(null, null, null, System.currentTimeMillis());
+    }
+}
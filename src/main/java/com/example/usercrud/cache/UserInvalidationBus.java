@@ -0,0 +1,15 @@
+package com.example.usercrud.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries committed user writes to every instance that caches users. Writers publish after
+ * commit; each subscriber, the publishing instance's own included, receives every
+ * invalidation at least once, so applying one must be idempotent.
+ */
+public interface UserInvalidationBus {
+
+    void publish(UserInvalidation invalidation);
+
+    void subscribe(Consumer<UserInvalidation> subscriber);
+}
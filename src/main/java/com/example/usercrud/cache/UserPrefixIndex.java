@@ -0,0 +1,226 @@
+package com.example.usercrud.cache;
+
+import com.example.usercrud.config.ReadYourWrites;
+import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.entity.User;
+import com.example.usercrud.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-memory index of normalized names and emails, ordered by (key, id) like the
+ * search indexes in the database, so a prefix page is a walk over a sorted set instead of a
+ * query. It only yields ids; callers fetch the rows and re-check the prefix, which drops
+ * entries that went stale but cannot find a user the index has under an old key.
+ *
+ * <p>Writes made here are applied after their transaction commits; writes from other
+ * replicas arrive through the invalidation bus and are read back from the primary. Every
+ * entry remembers the version it was built from, so neither the initial load nor a late
+ * invalidation can put back keys older than ones already applied.
+ */
+@Component
+public class UserPrefixIndex implements MeterBinder {
+
+    public enum Field { NAME, EMAIL }
+
+    public record Entry(String key, long id) {
+    }
+
+    private record Keys(String name, String email, Long version) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(UserPrefixIndex.class);
+
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::key).thenComparingLong(Entry::id);
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final NavigableSet<Entry> names = new ConcurrentSkipListSet<>(ORDER);
+    private final NavigableSet<Entry> emails = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<Long, Keys> keysById = new ConcurrentHashMap<>();
+    // Deletes seen while the initial load runs, so it does not index their rows again
+    private final Set<Long> removedWhileLoading = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean loading;
+    private volatile boolean ready;
+
+    @Autowired
+    public UserPrefixIndex(UserRepository userRepository, UserInvalidationBus bus,
+                           @Value("${app.search.prefix-index.enabled:false}") boolean enabled) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        if (enabled) {
+            bus.subscribe(this::onInvalidation);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        loading = true;
+        try (Stream<UserDTO> users = userRepository.streamAllDtosOrderedById()) {
+            users.filter(user -> !removedWhileLoading.contains(user.getId())).forEach(this::apply);
+        } finally {
+            loading = false;
+            removedWhileLoading.clear();
+        }
+        ready = true;
+        log.info("Prefix index loaded {} users", keysById.size());
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    public void put(UserDTO user) {
+        if (enabled) {
+            afterCommit(() -> apply(user));
+        }
+    }
+
+    public void remove(Long id) {
+        if (enabled) {
+            afterCommit(() -> unindex(id));
+        }
+    }
+
+    public void removeAll(Collection<Long> ids) {
+        if (enabled) {
+            afterCommit(() -> ids.forEach(this::unindex));
+        }
+    }
+
+    // Up to limit entries whose key starts with prefix, strictly after (afterKey, afterId)
+    public List<Entry> search(Field field, String prefix, String afterKey, long afterId, int limit) {
+        Entry from = ORDER.compare(new Entry(prefix, Long.MIN_VALUE), new Entry(afterKey, afterId)) > 0
+                ? new Entry(prefix, Long.MIN_VALUE)
+                : new Entry(afterKey, afterId);
+        List<Entry> matches = new ArrayList<>(limit);
+        for (Entry entry : set(field).tailSet(from, false)) {
+            if (!entry.key().startsWith(prefix) || matches.size() == limit) {
+                break;
+            }
+            matches.add(entry);
+        }
+        return matches;
+    }
+
+    public int size() {
+        return keysById.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("user.search.prefix.index.size", this, UserPrefixIndex::size)
+                .description("Users held in the in-memory prefix index")
+                .register(registry);
+    }
+
+    // Every committed write, this instance's included. Those already applied through put are
+    // skipped by version; for the rest the row is read back, as invalidations carry no name
+    private void onInvalidation(UserInvalidation invalidation) {
+        Long id = invalidation.id();
+        if (id == null) {
+            // The bus may have missed writes, so searches go to the database until restart
+            if (ready) {
+                log.warn("Invalidation bus may have missed writes; prefix index disabled until restart");
+            }
+            ready = false;
+            return;
+        }
+        Long version = invalidation.version();
+        if (version != null && version == UserInvalidation.DELETED) {
+            unindex(id);
+            return;
+        }
+        Keys indexed = keysById.get(id);
+        if (indexed != null && indexed.version() != null && version != null && indexed.version() >= version) {
+            return;
+        }
+        findOnPrimary(id).ifPresentOrElse(this::apply, () -> unindex(id));
+    }
+
+    // Synchronized so the key sets always match keysById; searches read the sets without it
+    private synchronized void apply(UserDTO user) {
+        Keys previous = keysById.get(user.getId());
+        if (previous != null && previous.version() != null && user.getVersion() != null
+                && previous.version() > user.getVersion()) {
+            return;
+        }
+        Keys keys = new Keys(User.normalize(user.getName()), User.normalize(user.getEmail()), user.getVersion());
+        keysById.put(user.getId(), keys);
+        if (previous != null) {
+            names.remove(new Entry(previous.name(), user.getId()));
+            emails.remove(new Entry(previous.email(), user.getId()));
+        }
+        names.add(new Entry(keys.name(), user.getId()));
+        emails.add(new Entry(keys.email(), user.getId()));
+    }
+
+    private synchronized void unindex(Long id) {
+        if (loading) {
+            removedWhileLoading.add(id);
+        }
+        Keys previous = keysById.remove(id);
+        if (previous != null) {
+            names.remove(new Entry(previous.name(), id));
+            emails.remove(new Entry(previous.email(), id));
+        }
+    }
+
+    // A replica that lags behind the invalidation would hand back the keys it replaces
+    private Optional<UserDTO> findOnPrimary(Long id) {
+        boolean pinned = ReadYourWrites.isPinnedToPrimary();
+        ReadYourWrites.pinToPrimary();
+        try {
+            return userRepository.findDtoById(id);
+        } finally {
+            if (!pinned) {
+                ReadYourWrites.clear();
+            }
+        }
+    }
+
+    private NavigableSet<Entry> set(Field field) {
+        return field == Field.NAME ? names : emails;
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
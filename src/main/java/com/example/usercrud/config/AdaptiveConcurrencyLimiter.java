@@ -0,0 +1,78 @@
+package com.example.usercrud.config;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit for one endpoint, adjusted by AIMD: every request that completes under
+ * the latency threshold while the endpoint is busy raises the limit by one, and every slow or
+ * failed request cuts it by the backoff ratio. When the database slows down the limit shrinks
+ * towards what it can serve at the target latency and the excess is rejected immediately,
+ * instead of queueing on Tomcat threads and the connection pool until everything times out.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final boolean adaptive;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      Duration latencyThreshold, double backoffRatio) {
+        this(initialLimit, minLimit, maxLimit, latencyThreshold.toNanos(), backoffRatio, true);
+    }
+
+    private AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                       long latencyThresholdNanos, double backoffRatio, boolean adaptive) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+        this.adaptive = adaptive;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    public static AdaptiveConcurrencyLimiter fixed(int limit) {
+        return new AdaptiveConcurrencyLimiter(limit, limit, limit, Long.MAX_VALUE, 1.0, false);
+    }
+
+    // Never waits: a request either gets a slot now or is shed
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (!adaptive) {
+            return;
+        }
+        synchronized (this) {
+            if (failed || latencyNanos > latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (inFlightBefore * 2 >= limit) {
+                // Only grow while the limit is actually being used, so idle periods do not inflate it
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
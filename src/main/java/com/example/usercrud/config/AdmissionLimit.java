@@ -0,0 +1,20 @@
+package com.example.usercrud.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Gives a handler method a fixed concurrency limit instead of the latency-driven one. Meant
+ * for long-running streaming endpoints and batch writes, whose latency says more about the
+ * size of the request than about database health.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AdmissionLimit {
+
+    int value();
+}
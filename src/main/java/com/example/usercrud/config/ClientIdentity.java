@@ -0,0 +1,31 @@
+package com.example.usercrud.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Who a request comes from, for state kept per client: rate-limit buckets and idempotency
+ * keys. With app.client-identity.header set, a request carrying that header is identified by
+ * its value, which must be a credential the gateway authenticates, such as an API key.
+ * Otherwise it falls back to the remote address, which behind a proxy is the client's only
+ * once server.forward-headers-strategy resolves X-Forwarded-For from trusted proxies; behind
+ * the NodePort service every client through one node shares the node's address.
+ */
+@Component
+public class ClientIdentity {
+
+    private final String header;
+
+    @Autowired
+    public ClientIdentity(@Value("${app.client-identity.header:}") String header) {
+        this.header = header == null || header.isBlank() ? null : header;
+    }
+
+    // Prefixed so a header value can never pose as an address
+    public String of(HttpServletRequest request) {
+        String value = header != null ? request.getHeader(header) : null;
+        return value != null && !value.isBlank() ? "key:" + value : "addr:" + request.getRemoteAddr();
+    }
+}
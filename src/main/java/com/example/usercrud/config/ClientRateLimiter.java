@@ -0,0 +1,50 @@
+package com.example.usercrud.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One token bucket per client, so a single noisy caller is throttled with 429s before it can
+ * use up the endpoints' concurrency limits for everyone else. Buckets are refilled lazily on
+ * access; idle ones are evicted, which only ever hands a returning client a full bucket.
+ */
+public class ClientRateLimiter {
+
+    private final double tokensPerNano;
+    private final double burst;
+    private final Cache<String, TokenBucket> buckets;
+
+    public ClientRateLimiter(double requestsPerSecond, int burst, long maxClients) {
+        this.tokensPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                // A bucket untouched this long has refilled completely, so dropping it changes nothing
+                .expireAfterAccess(Duration.ofNanos((long) Math.ceil(burst / tokensPerNano)).plusSeconds(1))
+                .build();
+    }
+
+    // Zero when the request may proceed, otherwise the nanos until the client's next token
+    public long tryAcquire(String client) {
+        return buckets.get(client, key -> new TokenBucket()).tryTake(System.nanoTime());
+    }
+
+    private final class TokenBucket {
+
+        private double tokens = burst;
+        private long lastRefill = System.nanoTime();
+
+        synchronized long tryTake(long now) {
+            tokens = Math.min(burst, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+    }
+}
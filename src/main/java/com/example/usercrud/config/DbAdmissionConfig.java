@@ -0,0 +1,35 @@
+package com.example.usercrud.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// Limits every Hikari pool bean; ShardingConfig limits the shard pools, which are not beans
+@Configuration
+@ConditionalOnProperty(name = "app.db.admission.enabled", havingValue = "true")
+public class DbAdmissionConfig {
+
+    @Bean
+    public DbAdmissionLimits dbAdmissionLimits(@Value("${app.db.admission.acquire-timeout:2s}") Duration acquireTimeout) {
+        return new DbAdmissionLimits(acquireTimeout);
+    }
+
+    @Bean
+    public static BeanPostProcessor dbAdmissionPostProcessor(ObjectProvider<DbAdmissionLimits> limits) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource pool) {
+                    return limits.getObject().wrap(pool, pool.getPoolName() != null ? pool.getPoolName() : beanName);
+                }
+                return bean;
+            }
+        };
+    }
+}
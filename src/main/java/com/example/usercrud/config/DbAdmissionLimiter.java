@@ -0,0 +1,71 @@
+package com.example.usercrud.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps how many callers may hold a connection from one pool at once; the rest wait on a fair
+ * semaphore. With virtual threads the request count is no longer bounded by Tomcat's pool, so
+ * without this thousands of threads would queue inside Hikari until its connection timeout
+ * fires for all of them.
+ */
+public class DbAdmissionLimiter implements MeterBinder {
+
+    private final String pool;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final Duration acquireTimeout;
+    private final AtomicLong rejections = new AtomicLong();
+
+    public DbAdmissionLimiter(String pool, int maxConcurrent, Duration acquireTimeout) {
+        this.pool = pool;
+        // Fair, so waiting callers are admitted in arrival order
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    public void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejections.incrementAndGet();
+                throw new SQLTransientConnectionException(
+                        "Database admission limit of " + maxConcurrent + " for pool " + pool + " reached; no permit within "
+                                + acquireTimeout.toMillis() + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for database admission to pool " + pool, e);
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("db.admission.in.use", this, limiter -> limiter.maxConcurrent - limiter.availablePermits())
+                .tag("pool", pool)
+                .register(registry);
+        Gauge.builder("db.admission.waiting", permits, Semaphore::getQueueLength)
+                .tag("pool", pool)
+                .register(registry);
+        FunctionCounter.builder("db.admission.rejections", rejections, AtomicLong::get)
+                .tag("pool", pool)
+                .register(registry);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.usercrud.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * One {@link DbAdmissionLimiter} per physical connection pool, each with as many permits as
+ * its pool has connections. The limits sit beneath the lazy and routing proxies, so a permit
+ * is taken only when a pooled connection is: a transaction that has not yet touched the
+ * database holds none, and the REQUIRES_NEW shard transactions that UserShards fans out wait
+ * on their own shard's limit rather than on one their caller already holds.
+ */
+public class DbAdmissionLimits implements MeterBinder {
+
+    private final Duration acquireTimeout;
+    private final List<DbAdmissionLimiter> limiters = new CopyOnWriteArrayList<>();
+
+    public DbAdmissionLimits(Duration acquireTimeout) {
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    public DataSource wrap(HikariDataSource pool, String name) {
+        DbAdmissionLimiter limiter = new DbAdmissionLimiter(name, pool.getMaximumPoolSize(), acquireTimeout);
+        limiters.add(limiter);
+        return new AdmissionControlledDataSource(pool, limiter);
+    }
+
+    // Bound once every pool bean exists; shard pools are wrapped while their router is built
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        limiters.forEach(limiter -> limiter.bindTo(registry));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.usercrud.config;
+
+import com.example.usercrud.dto.UserDTO;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Protocol Buffers encoding of the DTOs, with the .proto schema derived from each class by
+ * Jackson instead of generated from one, so the DTOs stay the single definition. Field
+ * numbers come from @JsonProperty(index) on each DTO field, so reordering or inserting fields
+ * does not renumber the wire format: new fields take the next unused index and removed ones
+ * leave a gap. The schema for a type is served at GET /api/users/schema.proto?type=UserPageDTO
+ * for clients that generate code from it.
+ */
+@Component
+public class JacksonProtobufHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public static final String PROTOBUF_VALUE = "application/x-protobuf";
+    public static final MediaType PROTOBUF = MediaType.parseMediaType(PROTOBUF_VALUE);
+
+    private final ProtobufMapper mapper = new ProtobufMapper();
+    private final Map<Class<?>, Optional<ProtobufSchema>> schemas = new ConcurrentHashMap<>();
+
+    public JacksonProtobufHttpMessageConverter() {
+        super(PROTOBUF);
+        // Same modules and date handling as the JSON mapper; timestamps go out as ISO strings
+        Jackson2ObjectMapperBuilder.json().configure(mapper);
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    public Optional<ProtobufSchema> schemaFor(Class<?> clazz) {
+        return schemas.computeIfAbsent(clazz, type -> {
+            try {
+                return Optional.of(mapper.generateSchemaFor(type));
+            } catch (JsonMappingException e) {
+                logger.warn("No protobuf schema for " + type.getName(), e);
+                return Optional.empty();
+            }
+        });
+    }
+
+    // Only the API's DTOs; maps such as error bodies have no fixed schema
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz.getPackageName().equals(UserDTO.class.getPackageName()) && schemaFor(clazz).isPresent();
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        ProtobufSchema schema = schemaFor(clazz)
+                .orElseThrow(() -> new HttpMessageNotReadableException("No protobuf schema for " + clazz.getSimpleName(), inputMessage));
+        return mapper.readerFor(clazz).with(schema).readValue(inputMessage.getBody());
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        mapper.writer(schemaFor(value.getClass()).orElseThrow()).writeValue(outputMessage.getBody(), value);
+    }
+}
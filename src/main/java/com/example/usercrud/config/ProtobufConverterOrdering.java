@@ -0,0 +1,25 @@
+package com.example.usercrud.config;
+
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Spring Boot puts converter beans ahead of its defaults, which would make protobuf the answer
+ * to a request without an Accept header. Moving it to the end keeps JSON the default; clients
+ * that ask for application/x-protobuf still get it.
+ */
+@Component
+public class ProtobufConverterOrdering implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        List<HttpMessageConverter<?>> protobuf = converters.stream()
+                .filter(JacksonProtobufHttpMessageConverter.class::isInstance)
+                .toList();
+        converters.removeAll(protobuf);
+        converters.addAll(protobuf);
+    }
+}
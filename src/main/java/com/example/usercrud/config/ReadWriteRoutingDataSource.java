@@ -0,0 +1,58 @@
+package com.example.usercrud.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends connections for read-only transactions to the replica and everything else to the
+ * primary. Must sit behind a LazyConnectionDataSourceProxy: the routing key is read when the
+ * physical connection is fetched, and only by then has the transaction's read-only flag been
+ * published.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private final ReplicaLagMonitor monitor;
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder replicaConnections = new LongAdder();
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor monitor) {
+        this.monitor = monitor;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    public Route currentRoute() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReadYourWrites.isPinnedToPrimary()
+                && monitor.isReplicaUsable()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Route route = currentRoute();
+        (route == Route.REPLICA ? replicaConnections : primaryConnections).increment();
+        return route;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("db.routing.connections", primaryConnections, LongAdder::sum)
+                .tag("target", "primary")
+                .register(registry);
+        FunctionCounter.builder("db.routing.connections", replicaConnections, LongAdder::sum)
+                .tag("target", "replica")
+                .register(registry);
+    }
+}
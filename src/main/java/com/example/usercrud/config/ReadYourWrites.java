@@ -0,0 +1,25 @@
+package com.example.usercrud.config;
+
+/**
+ * Per-thread flag that keeps reads on the primary while a client's recent write may not
+ * have reached the replica yet. Set by {@link ReadYourWritesFilter} for the request thread.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static void pinToPrimary() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED.get() != null;
+    }
+
+    public static void clear() {
+        PINNED.remove();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.usercrud.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Measures replica lag with a heartbeat row: each check stamps the current time on the
+ * primary and reads back the stamp the replica has applied. The difference bounds the lag
+ * from above (it includes up to one check interval), and a failed read marks the replica
+ * unhealthy. Reads are only routed to a replica that is healthy and within max-lag.
+ */
+public class ReplicaLagMonitor implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final Duration maxLag;
+
+    private volatile boolean healthy;
+    private volatile long lagMillis = -1;
+    private volatile boolean usable;
+
+    public ReplicaLagMonitor(DataSource primaryDataSource, DataSource replicaDataSource,
+                             Duration maxLag, Duration timeout) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.replica.setQueryTimeout((int) Math.max(1, timeout.toSeconds()));
+        this.maxLag = maxLag;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.check-interval:1s}")
+    public void sample() {
+        long now = System.currentTimeMillis();
+        try {
+            writeHeartbeat(now);
+        } catch (DataAccessException e) {
+            log.warn("Could not write replica heartbeat on the primary: {}", e.getMessage());
+        }
+
+        try {
+            Long beat = replica.queryForObject("select beat_millis from replica_heartbeat where id = 1", Long.class);
+            lagMillis = beat == null ? -1 : Math.max(0, now - beat);
+            healthy = beat != null;
+        } catch (DataAccessException e) {
+            lagMillis = -1;
+            healthy = false;
+        }
+
+        boolean wasUsable = usable;
+        usable = healthy && lagMillis <= maxLag.toMillis();
+        if (usable != wasUsable) {
+            if (usable) {
+                log.info("Replica is back within {} ms lag; routing read-only transactions to it", maxLag.toMillis());
+            } else {
+                log.warn("Replica {} (lag {} ms); routing reads to the primary",
+                        healthy ? "is lagging" : "is unavailable", lagMillis);
+            }
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    public boolean isReplicaHealthy() {
+        return healthy;
+    }
+
+    // -1 when the replica could not be read
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("db.replica.lag", this, monitor -> monitor.lagMillis < 0 ? Double.NaN : monitor.lagMillis / 1000.0)
+                .baseUnit("seconds")
+                .description("Replica lag measured through the heartbeat row")
+                .register(registry);
+        Gauge.builder("db.replica.usable", this, monitor -> monitor.usable ? 1 : 0)
+                .description("1 when read-only transactions are routed to the replica")
+                .register(registry);
+    }
+
+    // The table is the ReplicaHeartbeat entity's and reaches the replica through replication
+    private void writeHeartbeat(long now) {
+        if (primary.update("update replica_heartbeat set beat_millis = ? where id = 1", now) == 0) {
+            primary.update("insert into replica_heartbeat (id, beat_millis) values (1, ?)", now);
+        }
+    }
+}
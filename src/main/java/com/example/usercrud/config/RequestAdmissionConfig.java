@@ -0,0 +1,53 @@
+package com.example.usercrud.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "app.admission.enabled", havingValue = "true")
+public class RequestAdmissionConfig {
+
+    // Off by default: keyed on the remote address alone it would put every client behind a
+    // node or proxy into one bucket; see ClientIdentity
+    @Bean
+    @ConditionalOnProperty(name = "app.admission.client.enabled", havingValue = "true")
+    public ClientRateLimiter clientRateLimiter(@Value("${app.admission.client.requests-per-second:100}") double requestsPerSecond,
+                                               @Value("${app.admission.client.burst:200}") int burst,
+                                               @Value("${app.admission.client.max-clients:100000}") long maxClients) {
+        return new ClientRateLimiter(requestsPerSecond, burst, maxClients);
+    }
+
+    @Bean
+    public RequestAdmissionInterceptor requestAdmissionInterceptor(ObjectProvider<ClientRateLimiter> clientRateLimiter,
+                                                                   ClientIdentity clientIdentity,
+                                                                   MeterRegistry meterRegistry,
+                                                                   @Value("${app.admission.initial-limit:20}") int initialLimit,
+                                                                   @Value("${app.admission.min-limit:2}") int minLimit,
+                                                                   @Value("${app.admission.max-limit:200}") int maxLimit,
+                                                                   @Value("${app.admission.latency-threshold:250ms}") Duration latencyThreshold,
+                                                                   @Value("${app.admission.backoff-ratio:0.9}") double backoffRatio,
+                                                                   @Value("${app.admission.retry-after:1s}") Duration retryAfter) {
+        return new RequestAdmissionInterceptor(clientRateLimiter.getIfAvailable(), clientIdentity,
+                () -> new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, latencyThreshold, backoffRatio),
+                retryAfter, meterRegistry);
+    }
+
+    // Registered from here rather than as a scanned WebMvcConfigurer so @WebMvcTest slices skip it
+    @Bean
+    public WebMvcConfigurer requestAdmissionConfigurer(RequestAdmissionInterceptor interceptor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor).addPathPatterns("/api/users", "/api/users/**");
+            }
+        };
+    }
+}
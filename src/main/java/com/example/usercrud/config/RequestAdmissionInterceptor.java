@@ -0,0 +1,108 @@
+package com.example.usercrud.config;
+
+import com.example.usercrud.exception.ServiceOverloadedException;
+import com.example.usercrud.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Admits a request only if its client has a token left and its endpoint is under its
+ * concurrency limit; otherwise it fails fast through GlobalExceptionHandler with 429 or 503
+ * and a Retry-After. Endpoints are the controller's handler methods, each with its own limit,
+ * so a slow export does not shed single-user reads. Without a ClientRateLimiter only the
+ * endpoint limits apply.
+ */
+public class RequestAdmissionInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = RequestAdmissionInterceptor.class.getName() + ".permit";
+
+    private record Permit(AdaptiveConcurrencyLimiter limiter, long startNanos) {
+    }
+
+    private final ClientRateLimiter clientRateLimiter;
+    private final ClientIdentity clientIdentity;
+    private final Supplier<AdaptiveConcurrencyLimiter> limiterFactory;
+    private final long overloadRetryAfterSeconds;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public RequestAdmissionInterceptor(ClientRateLimiter clientRateLimiter,
+                                       ClientIdentity clientIdentity,
+                                       Supplier<AdaptiveConcurrencyLimiter> limiterFactory,
+                                       Duration overloadRetryAfter,
+                                       MeterRegistry meterRegistry) {
+        this.clientRateLimiter = clientRateLimiter;
+        this.clientIdentity = clientIdentity;
+        this.limiterFactory = limiterFactory;
+        this.overloadRetryAfterSeconds = Math.max(1, overloadRetryAfter.toSeconds());
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The async dispatch that finishes a streaming response still holds its original permit
+        if (request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        // Qualified by the controller, so same-named handlers elsewhere do not share a limit
+        String endpoint = method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+
+        long waitNanos = clientRateLimiter == null ? 0 : clientRateLimiter.tryAcquire(clientIdentity.of(request));
+        if (waitNanos > 0) {
+            reject(endpoint, "rate");
+            long retryAfterSeconds = (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+            throw new TooManyRequestsException("Rate limit exceeded; slow down", retryAfterSeconds);
+        }
+
+        AdaptiveConcurrencyLimiter limiter = limiters.computeIfAbsent(endpoint, key -> register(key, method));
+        if (!limiter.tryAcquire()) {
+            reject(endpoint, "concurrency");
+            throw new ServiceOverloadedException("Service is overloaded; retry later", overloadRetryAfterSeconds);
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, new Permit(limiter, System.nanoTime()));
+        return true;
+    }
+
+    // Not called when a streaming response goes async; the closing async dispatch calls it instead
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.isAsyncStarted() || !(request.getAttribute(PERMIT_ATTRIBUTE) instanceof Permit permit)) {
+            return;
+        }
+        request.removeAttribute(PERMIT_ATTRIBUTE);
+        // Client errors say nothing about capacity; server errors and timeouts do
+        boolean failed = ex != null || response.getStatus() >= 500;
+        permit.limiter().release(System.nanoTime() - permit.startNanos(), failed);
+    }
+
+    private AdaptiveConcurrencyLimiter register(String endpoint, HandlerMethod method) {
+        AdmissionLimit fixed = method.getMethodAnnotation(AdmissionLimit.class);
+        AdaptiveConcurrencyLimiter limiter = fixed != null
+                ? AdaptiveConcurrencyLimiter.fixed(fixed.value())
+                : limiterFactory.get();
+        Gauge.builder("http.admission.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests currently admitted to the endpoint")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        Gauge.builder("http.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current concurrency limit of the endpoint")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    private void reject(String endpoint, String reason) {
+        meterRegistry.counter("http.admission.rejections", "endpoint", endpoint, "reason", reason).increment();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.usercrud.config;
+
+/**
+ * Per-thread shard that {@link ShardRoutingDataSource} hands connections out for and that
+ * new user ids are stamped with. Bound through UserShards around each unit of shard work.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static void bind(int shard) {
+        SHARD.set(shard);
+    }
+
+    // Null when nothing is bound, e.g. with sharding disabled
+    public static Integer current() {
+        return SHARD.get();
+    }
+
+    public static void clear() {
+        SHARD.remove();
+    }
+}
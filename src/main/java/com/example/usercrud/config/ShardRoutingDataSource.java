@@ -0,0 +1,73 @@
+package com.example.usercrud.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out connections from the shard bound in {@link ShardContext}; unbound callers such as
+ * health checks and schema tooling get shard 0. Like the read/write router it must sit behind
+ * a LazyConnectionDataSourceProxy, so a transaction opened before its shard was bound still
+ * fetches the physical connection from the right pool.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder, AutoCloseable {
+
+    private final List<DataSource> shards;
+    private final LongAdder[] connections;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        this.shards = List.copyOf(shards);
+        this.connections = new LongAdder[shards.size()];
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+            connections[shard] = new LongAdder();
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        // An id naming a shard that does not exist must not quietly read shard 0
+        setLenientFallback(false);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public DataSource getShard(int shard) {
+        return shards.get(shard);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = ShardContext.current();
+        if (shard != null && shard >= 0 && shard < connections.length) {
+            connections[shard].increment();
+        }
+        return shard;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (int shard = 0; shard < connections.length; shard++) {
+            FunctionCounter.builder("db.shard.connections", connections[shard], LongAdder::sum)
+                    .tag("shard", String.valueOf(shard))
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource shard : shards) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.usercrud.config;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+
+/**
+ * Applies the configured ddl-auto action to every shard but the first; Hibernate's own run
+ * reaches only shard 0, the router's default. Drops that create-drop would run at shutdown
+ * are left to shard 0.
+ */
+class ShardSchemaIntegrator implements Integrator {
+
+    private final int shardCount;
+
+    ShardSchemaIntegrator(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        for (int shard = 1; shard < shardCount; shard++) {
+            ShardContext.bind(shard);
+            try {
+                SchemaManagementToolCoordinator.process(metadata, sessionFactory.getServiceRegistry(),
+                        sessionFactory.getProperties(), action -> { });
+            } finally {
+                ShardContext.clear();
+            }
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.usercrud.config;
+
+import com.example.usercrud.entity.ShardedSequenceGenerator;
+import com.example.usercrud.repository.UserEmailDirectory;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.init.DataSourceScriptDatabaseInitializer;
+import org.springframework.boot.sql.init.DatabaseInitializationMode;
+import org.springframework.boot.sql.init.DatabaseInitializationSettings;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spreads users over the databases in app.sharding.urls. JPA and everything else that takes
+ * the dataSource bean go through the shard router; spring.datasource keeps only the global
+ * email directory.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    // Each assumes a single users database: replica routing, a shared create transaction, a full in-memory index
+    private static final List<String> INCOMPATIBLE = List.of(
+            "app.datasource.replica.enabled", "app.group-commit.enabled", "app.search.prefix-index.enabled");
+
+    public ShardingConfig(Environment environment) {
+        for (String property : INCOMPATIBLE) {
+            if (environment.getProperty(property, Boolean.class, false)) {
+                throw new IllegalStateException(property + " cannot be combined with app.sharding.enabled");
+            }
+        }
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource directoryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("directory");
+        return dataSource;
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(@Value("${app.sharding.urls}") List<String> urls,
+                                                         @Value("${app.sharding.username:}") String username,
+                                                         @Value("${app.sharding.password:}") String password,
+                                                         @Value("${app.sharding.maximum-pool-size:10}") int maximumPoolSize,
+                                                         ObjectProvider<DbAdmissionLimits> admissionLimits) {
+        if (urls.isEmpty() || urls.size() > ShardedSequenceGenerator.SHARD_SLOTS) {
+            throw new IllegalStateException("app.sharding.urls must list between 1 and "
+                    + ShardedSequenceGenerator.SHARD_SLOTS + " databases");
+        }
+        List<DataSource> shards = new ArrayList<>();
+        for (int shard = 0; shard < urls.size(); shard++) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(shard))
+                    .username(username)
+                    .password(password)
+                    .build();
+            dataSource.setPoolName("shard-" + shard);
+            dataSource.setMaximumPoolSize(maximumPoolSize);
+            DbAdmissionLimits limits = admissionLimits.getIfAvailable();
+            shards.add(limits != null ? limits.wrap(dataSource, dataSource.getPoolName()) : dataSource);
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    // Hibernate's schema actions reach only the shards, so the directory has a script of its own
+    @Bean
+    public DataSourceScriptDatabaseInitializer directorySchemaInitializer(
+            @Qualifier("directoryDataSource") DataSource directoryDataSource,
+            @Value("${app.sharding.directory-init:always}") DatabaseInitializationMode mode) {
+        DatabaseInitializationSettings settings = new DatabaseInitializationSettings();
+        settings.setSchemaLocations(List.of("classpath:db/user-email-directory.sql"));
+        settings.setMode(mode);
+        return new DataSourceScriptDatabaseInitializer(directoryDataSource, settings);
+    }
+
+    @Bean
+    public UserEmailDirectory userEmailDirectory(@Qualifier("directoryDataSource") DataSource directoryDataSource,
+                                                 DataSourceScriptDatabaseInitializer directorySchemaInitializer,
+                                                 ShardRoutingDataSource shardRoutingDataSource,
+                                                 @Value("${app.sharding.claim-timeout:1m}") Duration claimTimeout) {
+        return new UserEmailDirectory(directoryDataSource, shardRoutingDataSource, claimTimeout);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCustomizer(ShardRoutingDataSource shardRoutingDataSource) {
+        IntegratorProvider integrators = () -> List.of(new ShardSchemaIntegrator(shardRoutingDataSource.getShardCount()));
+        return properties -> properties.put(JpaSettings.INTEGRATOR_PROVIDER, integrators);
+    }
+}
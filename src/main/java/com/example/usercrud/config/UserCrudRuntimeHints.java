@@ -0,0 +1,41 @@
+package com.example.usercrud.config;
+
+import com.example.usercrud.dto.BatchItemResultDTO;
+import com.example.usercrud.dto.BatchResultDTO;
+import com.example.usercrud.dto.BulkDeleteProgressDTO;
+import com.example.usercrud.dto.BulkDeleteRequestDTO;
+import com.example.usercrud.dto.UserChangeDTO;
+import com.example.usercrud.dto.UserChangePageDTO;
+import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.dto.UserPageDTO;
+import com.example.usercrud.entity.User;
+import com.example.usercrud.entity.UserChangeSequence;
+import com.example.usercrud.entity.UserTombstone;
+import com.example.usercrud.exception.GlobalExceptionHandler;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.util.List;
+
+/**
+ * Reflection that AOT processing cannot infer from bean definitions: DTOs are built by JPQL
+ * constructor expressions and bound by Jackson (JSON, CBOR, Smile and the derived protobuf
+ * schemas), entities are read and written by Hibernate, and the exception handler's methods
+ * are resolved reflectively. Used by the aot and native profiles; ignored on a plain JVM.
+ */
+public class UserCrudRuntimeHints implements RuntimeHintsRegistrar {
+
+    static final List<Class<?>> REFLECTED_TYPES = List.of(
+            UserDTO.class, UserPageDTO.class, UserChangeDTO.class, UserChangeDTO.Type.class, UserChangePageDTO.class,
+            BatchResultDTO.class, BatchItemResultDTO.class, BatchItemResultDTO.Status.class, BulkDeleteRequestDTO.class, BulkDeleteProgressDTO.class,
+            User.class, UserTombstone.class, UserChangeSequence.class, GlobalExceptionHandler.class);
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        REFLECTED_TYPES.forEach(type -> hints.reflection().registerType(type,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS,
+                MemberCategory.DECLARED_FIELDS));
+    }
+}
@@ -1,13 +1,12 @@
 package com.example.usercrud.controller;
 
+import com.example.usercrud.health.DatabaseHealthIndicator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import javax.sql.DataSource;
-import java.sql.Connection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -15,11 +14,11 @@ import java.util.Map;
 @RequestMapping("/api/health")
 public class HealthCheckController {
 
-    private final DataSource dataSource;
+    private final DatabaseHealthIndicator databaseHealth;
 
     @Autowired
-    public HealthCheckController(DataSource dataSource) {
-        this.dataSource = dataSource;
+    public HealthCheckController(DatabaseHealthIndicator databaseHealth) {
+        this.databaseHealth = databaseHealth;
     }
 
     @GetMapping
@@ -28,16 +27,39 @@ public class HealthCheckController {
         healthStatus.put("status", "UP");
         healthStatus.put("application", "User CRUD API");
         
-        // Check database connection
-        try (Connection connection = dataSource.getConnection()) {
-            healthStatus.put("database", "Connected");
-            healthStatus.put("databaseProductName", connection.getMetaData().getDatabaseProductName());
-        } catch (Exception e) {
+        // Serve the last background sample instead of borrowing a connection per call
+        DatabaseHealthIndicator.Sample sample = databaseHealth.current();
+        healthStatus.put("databaseCheckedAt", sample.sampledAt());
+        if (!sample.up()) {
             healthStatus.put("database", "Disconnected");
-            healthStatus.put("error", e.getMessage());
+            healthStatus.put("error", sample.error());
             return ResponseEntity.status(503).body(healthStatus);
         }
+        healthStatus.put("database", "Connected");
+        healthStatus.put("databaseProductName", sample.databaseProductName());
         
         return ResponseEntity.ok(healthStatus);
     }
+
+    // Liveness only reflects the process itself, so a slow database never restarts the pod
+    @GetMapping("/liveness")
+    public ResponseEntity<Map<String, Object>> liveness() {
+        Map<String, Object> healthStatus = new HashMap<>();
+        healthStatus.put("status", "UP");
+        healthStatus.put("application", "User CRUD API");
+        return ResponseEntity.ok(healthStatus);
+    }
+
+    @GetMapping("/readiness")
+    public ResponseEntity<Map<String, Object>> readiness() {
+        DatabaseHealthIndicator.Sample sample = databaseHealth.current();
+        Map<String, Object> healthStatus = new HashMap<>();
+        healthStatus.put("status", sample.up() ? "UP" : "DOWN");
+        healthStatus.put("databaseCheckedAt", sample.sampledAt());
+        if (!sample.up()) {
+            healthStatus.put("error", sample.error());
+            return ResponseEntity.status(503).body(healthStatus);
+        }
+        return ResponseEntity.ok(healthStatus);
+    }
 }
@@ -1,54 +1,339 @@
 package com.example.usercrud.controller;
 
+import com.example.usercrud.cache.IdempotencyStore;
+import com.example.usercrud.config.AdmissionLimit;
+import com.example.usercrud.config.ClientIdentity;
+import com.example.usercrud.config.JacksonProtobufHttpMessageConverter;
+import com.example.usercrud.config.ReadYourWrites;
+import com.example.usercrud.dto.BatchResultDTO;
+import com.example.usercrud.dto.BulkDeleteProgressDTO;
+import com.example.usercrud.dto.BulkDeleteRequestDTO;
+import com.example.usercrud.dto.UserChangePageDTO;
 import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.dto.UserPageDTO;
+import com.example.usercrud.exception.BadRequestException;
+import com.example.usercrud.exception.PreconditionFailedException;
+import com.example.usercrud.service.UserBulkDeleteService;
+import com.example.usercrud.service.UserChangeFeedService;
+import com.example.usercrud.service.UserChangeStream;
 import com.example.usercrud.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
+    public static final String CBOR_SEQ_VALUE = "application/cbor-seq";
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final int MAX_CONCURRENT_BATCHES = 4;
+
+    private static final Map<String, Class<?>> PROTOBUF_TYPES = Map.of(
+            "UserDTO", UserDTO.class,
+            "UserPageDTO", UserPageDTO.class,
+            "UserChangePageDTO", UserChangePageDTO.class,
+            "BatchResultDTO", BatchResultDTO.class);
+
     private final UserService userService;
+    private final UserBulkDeleteService bulkDeleteService;
+    private final UserChangeFeedService changeFeedService;
+    private final UserChangeStream changeStream;
+    private final JacksonProtobufHttpMessageConverter protobufConverter;
+    private final IdempotencyStore idempotencyStore;
+    private final ClientIdentity clientIdentity;
+    private final ObjectMapper objectMapper;
+    private final Map<MediaType, ObjectMapper> exportMappers = new LinkedHashMap<>();
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserBulkDeleteService bulkDeleteService,
+                          UserChangeFeedService changeFeedService, UserChangeStream changeStream,
+                          JacksonProtobufHttpMessageConverter protobufConverter, IdempotencyStore idempotencyStore,
+                          ClientIdentity clientIdentity, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.bulkDeleteService = bulkDeleteService;
+        this.changeFeedService = changeFeedService;
+        this.changeStream = changeStream;
+        this.protobufConverter = protobufConverter;
+        this.idempotencyStore = idempotencyStore;
+        this.clientIdentity = clientIdentity;
+        this.objectMapper = objectMapper;
+        // Binary exports keep the JSON mapper's configuration and swap only the encoding
+        exportMappers.put(MediaType.APPLICATION_NDJSON, objectMapper);
+        exportMappers.put(MediaType.parseMediaType(CBOR_SEQ_VALUE), objectMapper.copyWith(new CBORFactory()));
+        exportMappers.put(MediaType.parseMediaType(SMILE_VALUE), objectMapper.copyWith(new SmileFactory()));
     }
 
+    // A retry with the same Idempotency-Key gets the first 201 back without reaching the service
     @PostMapping
-    public ResponseEntity<UserDTO> createUser(@Valid @RequestBody UserDTO userDTO) {
-        UserDTO createdUser = userService.createUser(userDTO);
-        return new ResponseEntity<>(createdUser, HttpStatus.CREATED);
+    public ResponseEntity<UserDTO> createUser(@Valid @RequestBody UserDTO userDTO,
+                                              @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+                                              HttpServletRequest request) {
+        return idempotencyStore.execute(clientIdentity.of(request), idempotencyKey, "POST /api/users", userDTO, () -> {
+            UserDTO createdUser = userService.createUser(userDTO);
+            return withETag(ResponseEntity.status(HttpStatus.CREATED), createdUser.getVersion()).body(createdUser);
+        });
+    }
+
+    // Latency grows with the batch size rather than with database load, so it cannot steer an adaptive limit
+    @AdmissionLimit(MAX_CONCURRENT_BATCHES)
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResultDTO> createUsers(@RequestBody List<UserDTO> userDTOs,
+                                                      @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+                                                      HttpServletRequest request) {
+        return idempotencyStore.execute(clientIdentity.of(request), idempotencyKey, "POST /api/users/batch", userDTOs,
+                () -> ResponseEntity.ok(userService.createUsers(userDTOs)));
     }
 
     @GetMapping
-    public ResponseEntity<List<UserDTO>> getAllUsers() {
-        List<UserDTO> users = userService.getAllUsers();
+    public ResponseEntity<UserPageDTO> getAllUsers(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "" + UserService.DEFAULT_PAGE_SIZE) int size) {
+        UserPageDTO users = userService.getAllUsers(cursor, size);
+        return ResponseEntity.ok(users);
+    }
+
+    // Creates, updates and deletes after the cursor; poll again with nextCursor
+    @GetMapping("/changes")
+    public ResponseEntity<UserChangePageDTO> getChanges(@RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "" + UserChangeFeedService.DEFAULT_PAGE_SIZE) int size) {
+        UserChangePageDTO changes = changeFeedService.getChanges(cursor, size);
+        return ResponseEntity.ok(changes);
+    }
+
+    // Same feed pushed as Server-Sent Events; an EventSource resumes through Last-Event-ID
+    @AdmissionLimit(UserChangeStream.MAX_SUBSCRIBERS)
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                    @RequestParam(required = false) String cursor) {
+        return changeStream.subscribe(lastEventId != null ? lastEventId : cursor);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<UserPageDTO> searchUsers(@RequestParam String q,
+                                                   @RequestParam(defaultValue = "name") String by,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "" + UserService.DEFAULT_PAGE_SIZE) int size) {
+        UserPageDTO users = userService.searchUsers(q, by, cursor, size);
         return ResponseEntity.ok(users);
     }
 
+    // Exact, case-insensitive match; the email goes in the query so it is never part of a path
+    @GetMapping("/by-email")
+    public ResponseEntity<UserDTO> getUserByEmail(@RequestParam String email) {
+        UserDTO user = userService.getUserByEmail(email);
+        return withETag(ResponseEntity.ok(), user.getVersion()).body(user);
+    }
+
+    // NDJSON by default; application/cbor-seq (RFC 8742) and Smile write one binary value per user
+    @AdmissionLimit(4)
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, CBOR_SEQ_VALUE, SMILE_VALUE})
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        MediaType mediaType = exportMediaType(accept);
+        ObjectMapper mapper = exportMappers.get(mediaType);
+        // Let the servlet buffer decide when to flush instead of flushing after every row
+        ObjectWriter writer = mapper.writerFor(UserDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        boolean newlineDelimited = MediaType.APPLICATION_NDJSON.equals(mediaType);
+        // The body runs on the async executor, where the request thread's pin is not visible
+        boolean pinnedToPrimary = ReadYourWrites.isPinnedToPrimary();
+        StreamingResponseBody body = outputStream -> {
+            if (pinnedToPrimary) {
+                ReadYourWrites.pinToPrimary();
+            }
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(outputStream)) {
+                userService.exportUsers(user -> {
+                    try {
+                        writer.writeValue(generator, user);
+                        if (newlineDelimited) {
+                            generator.writeRaw('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } finally {
+                ReadYourWrites.clear();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .body(body);
+    }
+
+    // .proto source behind the application/x-protobuf encoding of a response type
+    @GetMapping(value = "/schema.proto", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> getProtobufSchema(@RequestParam(defaultValue = "UserPageDTO") String type) {
+        Class<?> dtoClass = PROTOBUF_TYPES.get(type);
+        if (dtoClass == null) {
+            throw new BadRequestException("No protobuf schema for type: " + type);
+        }
+        ProtobufSchema schema = protobufConverter.schemaFor(dtoClass)
+                .orElseThrow(() -> new BadRequestException("No protobuf schema for type: " + type));
+        return ResponseEntity.ok(schema.getSource().toString());
+    }
+
+    // One NDJSON progress line per committed chunk, then a final line with done=true
+    @AdmissionLimit(1)
+    @PostMapping(value = "/bulk-delete", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> bulkDeleteUsers(@RequestBody BulkDeleteRequestDTO request) {
+        // Reject bad requests before the 200 status is committed
+        bulkDeleteService.validate(request);
+        ObjectWriter progressWriter = objectMapper.writerFor(BulkDeleteProgressDTO.class);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                bulkDeleteService.delete(request, progress -> {
+                    try {
+                        progressWriter.writeValue(generator, progress);
+                        generator.writeRaw('\n');
+                        // Flush per chunk so clients see progress as it happens
+                        generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<UserDTO> getUserById(@PathVariable Long id) {
+    public ResponseEntity<UserDTO> getUserById(@PathVariable Long id,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Revalidation only needs the version, so a matching client never pays for the full row
+        if (ifNoneMatch != null) {
+            Long version = userService.getUserVersion(id);
+            if (noneMatchHits(ifNoneMatch, version)) {
+                return withETag(ResponseEntity.status(HttpStatus.NOT_MODIFIED), version).build();
+            }
+        }
         UserDTO user = userService.getUserById(id);
-        return ResponseEntity.ok(user);
+        return withETag(ResponseEntity.ok(), user.getVersion()).body(user);
     }
 
+    // A retried conditional write would otherwise fail on the version its first attempt bumped
     @PutMapping("/{id}")
     public ResponseEntity<UserDTO> updateUser(@PathVariable Long id, 
-                                              @Valid @RequestBody UserDTO userDTO) {
-        UserDTO updatedUser = userService.updateUser(id, userDTO);
-        return ResponseEntity.ok(updatedUser);
+                                              @Valid @RequestBody UserDTO userDTO,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                              @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+                                              HttpServletRequest request) {
+        return idempotencyStore.execute(clientIdentity.of(request), idempotencyKey,
+                "PUT /api/users/" + id + " If-Match " + ifMatch, userDTO, () -> {
+            UserDTO updatedUser = userService.updateUser(id, userDTO, expectedVersion(ifMatch));
+            return withETag(ResponseEntity.ok(), updatedUser.getVersion()).body(updatedUser);
+        });
     }
 
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<UserDTO> patchUser(@PathVariable Long id,
+                                             @RequestBody JsonNode patch,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                             @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+                                             HttpServletRequest request) {
+        return idempotencyStore.execute(clientIdentity.of(request), idempotencyKey,
+                "PATCH /api/users/" + id + " If-Match " + ifMatch, patch, () -> {
+            UserDTO patchedUser = userService.patchUser(id, patch, expectedVersion(ifMatch));
+            return withETag(ResponseEntity.ok(), patchedUser.getVersion()).body(patchedUser);
+        });
+    }
+
+    // Replayed, a retried delete gets its 204 instead of a 404 for the row it already removed
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
-        userService.deleteUser(id);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<Void> deleteUser(@PathVariable Long id,
+                                           @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+                                           HttpServletRequest request) {
+        return idempotencyStore.execute(clientIdentity.of(request), idempotencyKey, "DELETE /api/users/" + id, null, () -> {
+            userService.deleteUser(id);
+            return ResponseEntity.noContent().build();
+        });
+    }
+
+    // Highest q-value first, concrete types before wildcards at equal q, then in the order the
+    // client listed them; q=0 rules a format out
+    private MediaType exportMediaType(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_NDJSON;
+        }
+        List<MediaType> acceptable = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        acceptable.removeIf(accepted -> accepted.getQualityValue() == 0);
+        acceptable.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed()
+                .thenComparing(MediaType::isWildcardType)
+                .thenComparing(MediaType::isWildcardSubtype));
+        for (MediaType accepted : acceptable) {
+            for (MediaType candidate : exportMappers.keySet()) {
+                if (accepted.includes(candidate)) {
+                    return candidate;
+                }
+            }
+        }
+        return MediaType.APPLICATION_NDJSON;
+    }
+
+    // Strong ETag: the row version changes on every committed write
+    private static String eTag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder builder, Long version) {
+        return version == null ? builder : builder.eTag(eTag(version));
+    }
+
+    // If-None-Match uses weak comparison, so W/"3" also matches version 3
+    private static boolean noneMatchHits(String ifNoneMatch, Long version) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(eTag(version))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // null means unconditional; "*" only requires that the user exists, which the update checks anyway
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // fall through: an ETag we never issued cannot match
+            }
+        }
+        throw new PreconditionFailedException("If-Match does not match the current version: " + ifMatch);
     }
 }
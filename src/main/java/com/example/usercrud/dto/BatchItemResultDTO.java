@@ -0,0 +1,70 @@
+package com.example.usercrud.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class BatchItemResultDTO {
+
+    public enum Status {
+        CREATED,
+        CONFLICT,
+        INVALID,
+        // Its shard could not be written; the user was not stored and can be sent again
+        FAILED
+    }
+
+    @JsonProperty(index = 1)
+    private int index;
+
+    @JsonProperty(index = 2)
+    private Status status;
+
+    @JsonProperty(index = 3)
+    private UserDTO user;
+
+    @JsonProperty(index = 4)
+    private String message;
+
+    // Constructors
+    public BatchItemResultDTO() {
+    }
+
+    public BatchItemResultDTO(int index, Status status, UserDTO user, String message) {
+        this.index = index;
+        this.status = status;
+        this.user = user;
+        this.message = message;
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public UserDTO getUser() {
+        return user;
+    }
+
+    public void setUser(UserDTO user) {
+        this.user = user;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.usercrud.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class BatchResultDTO {
+
+    @JsonProperty(index = 1)
+    private int created;
+
+    @JsonProperty(index = 2)
+    private int conflicts;
+
+    @JsonProperty(index = 3)
+    private int invalid;
+
+    @JsonProperty(index = 4)
+    private List<BatchItemResultDTO> results;
+
+    @JsonProperty(index = 5)
+    private int failed;
+
+    // Constructors
+    public BatchResultDTO() {
+    }
+
+    public BatchResultDTO(List<BatchItemResultDTO> results) {
+        this.results = results;
+        for (BatchItemResultDTO result : results) {
+            switch (result.getStatus()) {
+                case CREATED -> created++;
+                case CONFLICT -> conflicts++;
+                case INVALID -> invalid++;
+                case FAILED -> failed++;
+            }
+        }
+    }
+
+    // Getters and Setters
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getConflicts() {
+        return conflicts;
+    }
+
+    public void setConflicts(int conflicts) {
+        this.conflicts = conflicts;
+    }
+
+    public int getInvalid() {
+        return invalid;
+    }
+
+    public void setInvalid(int invalid) {
+        this.invalid = invalid;
+    }
+
+    public List<BatchItemResultDTO> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchItemResultDTO> results) {
+        this.results = results;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.usercrud.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class BulkDeleteProgressDTO {
+
+    @JsonProperty(index = 1)
+    private int chunk;
+
+    @JsonProperty(index = 2)
+    private int deleted;
+
+    @JsonProperty(index = 3)
+    private long totalDeleted;
+
+    @JsonProperty(index = 4)
+    private boolean done;
+
+    // Constructors
+    public BulkDeleteProgressDTO() {
+    }
+
+    public BulkDeleteProgressDTO(int chunk, int deleted, long totalDeleted, boolean done) {
+        this.chunk = chunk;
+        this.deleted = deleted;
+        this.totalDeleted = totalDeleted;
+        this.done = done;
+    }
+
+    // Getters and Setters
+    public int getChunk() {
+        return chunk;
+    }
+
+    public void setChunk(int chunk) {
+        this.chunk = chunk;
+    }
+
+    public int getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(int deleted) {
+        this.deleted = deleted;
+    }
+
+    public long getTotalDeleted() {
+        return totalDeleted;
+    }
+
+    public void setTotalDeleted(long totalDeleted) {
+        this.totalDeleted = totalDeleted;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public void setDone(boolean done) {
+        this.done = done;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.usercrud.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class BulkDeleteRequestDTO {
+
+    @JsonProperty(index = 1)
+    private List<Long> ids;
+
+    // Only rows last updated before this instant are deleted
+    @JsonProperty(index = 2)
+    private LocalDateTime updatedBefore;
+
+    // Constructors
+    public BulkDeleteRequestDTO() {
+    }
+
+    public BulkDeleteRequestDTO(List<Long> ids, LocalDateTime updatedBefore) {
+        this.ids = ids;
+        this.updatedBefore = updatedBefore;
+    }
+
+    // Getters and Setters
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public LocalDateTime getUpdatedBefore() {
+        return updatedBefore;
+    }
+
+    public void setUpdatedBefore(LocalDateTime updatedBefore) {
+        this.updatedBefore = updatedBefore;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.usercrud.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+
+public class UserChangeDTO {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    @JsonProperty(index = 1)
+    private Type type;
+
+    @JsonProperty(index = 2)
+    private Long id;
+
+    // Current state of the user; null for deletes
+    @JsonProperty(index = 3)
+    private UserDTO user;
+
+    @JsonProperty(index = 4)
+    private LocalDateTime changedAt;
+
+    // Where the change sits in its shard's change sequence, and the feed cursor just past it
+    @JsonIgnore
+    private long sequence;
+
+    @JsonIgnore
+    private String cursor;
+
+    // Constructors
+    public UserChangeDTO() {
+    }
+
+    public UserChangeDTO(Type type, Long id, UserDTO user, LocalDateTime changedAt) {
+        this.type = type;
+        this.id = id;
+        this.user = user;
+        this.changedAt = changedAt;
+    }
+
+    // For constructor expressions over users; a row never updated still has version 0
+    public UserChangeDTO(Long id, String name, String email, String phone, Long version, LocalDateTime changedAt,
+                         Long sequence) {
+        this(version != null && version == 0 ? Type.CREATED : Type.UPDATED, id,
+                new UserDTO(id, name, email, phone, version), changedAt);
+        this.sequence = sequence;
+    }
+
+    // For constructor expressions over tombstones
+    public UserChangeDTO(Long id, LocalDateTime changedAt, Long sequence) {
+        this(Type.DELETED, id, null, changedAt);
+        this.sequence = sequence;
+    }
+
+    // Getters and Setters
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public UserDTO getUser() {
+        return user;
+    }
+
+    public void setUser(UserDTO user) {
+        this.user = user;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+}
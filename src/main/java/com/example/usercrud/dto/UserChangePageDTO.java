@@ -0,0 +1,53 @@
+package com.example.usercrud.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class UserChangePageDTO {
+
+    @JsonProperty(index = 1)
+    private List<UserChangeDTO> changes;
+
+    // Always set, even on an empty page: the position to poll from next time
+    @JsonProperty(index = 2)
+    private String nextCursor;
+
+    @JsonProperty(index = 3)
+    private boolean hasMore;
+
+    // Constructors
+    public UserChangePageDTO() {
+    }
+
+    public UserChangePageDTO(List<UserChangeDTO> changes, String nextCursor, boolean hasMore) {
+        this.changes = changes;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<UserChangeDTO> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<UserChangeDTO> changes) {
+        this.changes = changes;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -1,24 +1,34 @@
 package com.example.usercrud.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
 public class UserDTO {
 
+    @JsonProperty(index = 1)
     private Long id;
 
     @NotBlank(message = "Name is required")
     @Size(min = 2, max = 100, message = "Name must be between 2 and 100 characters")
+    @JsonProperty(index = 2)
     private String name;
 
     @NotBlank(message = "Email is required")
     @Email(message = "Email should be valid")
+    @JsonProperty(index = 3)
     private String email;
 
     @Size(max = 15, message = "Phone number must not exceed 15 characters")
+    @JsonProperty(index = 4)
     private String phone;
 
+    // Row version; sent as the ETag header rather than in the body
+    @JsonIgnore
+    private Long version;
+
     // Constructors
     public UserDTO() {
     }
@@ -30,6 +40,11 @@ public class UserDTO {
         this.phone = phone;
     }
 
+    public UserDTO(Long id, String name, String email, String phone, Long version) {
+        this(id, name, email, phone);
+        this.version = version;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -62,4 +77,12 @@ public class UserDTO {
     public void setPhone(String phone) {
         this.phone = phone;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
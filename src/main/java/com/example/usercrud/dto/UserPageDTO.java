@@ -0,0 +1,40 @@
+package com.example.usercrud.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class UserPageDTO {
+
+    @JsonProperty(index = 1)
+    private List<UserDTO> users;
+
+    @JsonProperty(index = 2)
+    private String nextCursor;
+
+    // Constructors
+    public UserPageDTO() {
+    }
+
+    public UserPageDTO(List<UserDTO> users, String nextCursor) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<UserDTO> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<UserDTO> users) {
+        this.users = users;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.usercrud.entity;
+
+import jakarta.persistence.*;
+
+// One row, stamped on the primary by ReplicaLagMonitor and read back from the replica
+@Entity
+@Table(name = "replica_heartbeat")
+public class ReplicaHeartbeat {
+
+    @Id
+    private Integer id;
+
+    @Column(name = "beat_millis", nullable = false)
+    private long beatMillis;
+
+    // Constructors
+    public ReplicaHeartbeat() {
+    }
+
+    // Getters and Setters
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public long getBeatMillis() {
+        return beatMillis;
+    }
+
+    public void setBeatMillis(long beatMillis) {
+        this.beatMillis = beatMillis;
+    }
+}
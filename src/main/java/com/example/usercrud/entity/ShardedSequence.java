@@ -0,0 +1,22 @@
+package com.example.usercrud.entity;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Pooled sequence id whose low bits carry the shard the row was written to; see
+ * {@link ShardedSequenceGenerator}.
+ */
+@IdGeneratorType(ShardedSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface ShardedSequence {
+
+    String sequenceName();
+
+    int allocationSize() default 50;
+}
@@ -0,0 +1,77 @@
+package com.example.usercrud.entity;
+
+import com.example.usercrud.config.ShardContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.AnnotationBasedGenerator;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerDescriptor;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.lang.reflect.Member;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The entity's pooled sequence, made globally unique across shards: with a shard bound in
+ * {@link ShardContext} the id is {@code value * SHARD_SLOTS + shard}, where value comes from
+ * that shard's own sequence. Each shard gets its own optimizer, since a block of values
+ * reserved on one shard's sequence means nothing to another's. With nothing bound the plain
+ * sequence value is returned, so unsharded ids are unchanged.
+ *
+ * <p>Ids stay below 2^53, the largest integer JSON clients read exactly, until a shard has
+ * handed out 2^47 values.
+ */
+public class ShardedSequenceGenerator extends SequenceStyleGenerator implements AnnotationBasedGenerator<ShardedSequence> {
+
+    public static final int SHARD_SLOTS = 64;
+
+    private final Map<Integer, Optimizer> shardOptimizers = new ConcurrentHashMap<>();
+    private String sequenceName;
+    private int allocationSize;
+    private OptimizerDescriptor optimizerDescriptor;
+
+    public static long encode(long value, int shard) {
+        return value * SHARD_SLOTS + shard;
+    }
+
+    public static int shardOf(long id) {
+        return (int) Math.floorMod(id, (long) SHARD_SLOTS);
+    }
+
+    @Override
+    public void initialize(ShardedSequence annotation, Member member, GeneratorCreationContext context) {
+        this.sequenceName = annotation.sequenceName();
+        this.allocationSize = annotation.allocationSize();
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        parameters.put(SEQUENCE_PARAM, sequenceName);
+        parameters.put(INCREMENT_PARAM, String.valueOf(allocationSize));
+        super.configure(type, parameters, serviceRegistry);
+    }
+
+    @Override
+    protected OptimizerDescriptor determineOptimizationStrategy(Properties parameters, int incrementSize) {
+        optimizerDescriptor = super.determineOptimizationStrategy(parameters, incrementSize);
+        return optimizerDescriptor;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        Integer shard = ShardContext.current();
+        if (shard == null) {
+            return super.generate(session, object);
+        }
+        Optimizer optimizer = shardOptimizers.computeIfAbsent(shard, key -> OptimizerFactory.buildOptimizer(
+                optimizerDescriptor, getIdentifierType().getReturnedClass(),
+                getOptimizer().getIncrementSize(), getDatabaseStructure().getInitialValue()));
+        Number value = (Number) optimizer.generate(getDatabaseStructure().buildCallback(session));
+        return encode(value.longValue(), shard);
+    }
+}
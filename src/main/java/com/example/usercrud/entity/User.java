@@ -4,14 +4,34 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Locale;
 
+// Entity updates list only the dirty columns, so a phone edit does not rewrite name and email
 @Entity
-@Table(name = "users")
+@DynamicUpdate
+@Table(name = "users",
+        uniqueConstraints = @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email"),
+        indexes = {
+                // (key, id) matches the search keyset order, so a page is one index range scan
+                @Index(name = "idx_users_name_normalized", columnList = "name_normalized, id"),
+                @Index(name = "idx_users_email_normalized", columnList = "email_normalized, id"),
+                // Bulk delete finds rows by updated_at
+                @Index(name = "idx_users_updated_at", columnList = "updated_at, id"),
+                // Change feed reads rows in (change_seq, id) order after a cursor
+                @Index(name = "idx_users_change_seq", columnList = "change_seq, id")
+        })
 public class User {
 
+    // Named so duplicate-email violations can be recognised from the database error
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+
+    // Pooled sequence (a table on MySQL) so Hibernate can batch inserts, unlike IDENTITY;
+    // with sharding enabled the id also names the shard holding the row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @ShardedSequence(sequenceName = "user_id_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Name is required")
@@ -21,28 +41,54 @@ public class User {
 
     @NotBlank(message = "Email is required")
     @Email(message = "Email should be valid")
-    @Column(nullable = false, unique = true, length = 100)
+    @Column(nullable = false, length = 100)
     private String email;
 
     @Size(max = 15, message = "Phone number must not exceed 15 characters")
     @Column(length = 15)
     private String phone;
 
+    // Lower-cased copies for case-insensitive prefix search; kept in step by the lifecycle hooks
+    @Column(name = "name_normalized", length = 100)
+    private String nameNormalized;
+
+    @Column(name = "email_normalized", length = 100)
+    private String emailNormalized;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    // Position in the change feed: 0 until UserChangeLog stamps it as the write commits, and
+    // null only on rows from before the sequence existed, until they are backfilled
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
-        updatedAt = LocalDateTime.now();
+        // UTC, so instances in different zones stamp alike
+        createdAt = LocalDateTime.now(ZoneOffset.UTC);
+        updatedAt = createdAt;
+        changeSeq = 0L;
+        nameNormalized = normalize(name);
+        emailNormalized = normalize(email);
     }
 
     @PreUpdate
     protected void onUpdate() {
-        updatedAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now(ZoneOffset.UTC);
+        nameNormalized = normalize(name);
+        emailNormalized = normalize(email);
+    }
+
+    public static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
     }
 
     // Constructors
@@ -88,6 +134,14 @@ public class User {
         this.phone = phone;
     }
 
+    public String getNameNormalized() {
+        return nameNormalized;
+    }
+
+    public String getEmailNormalized() {
+        return emailNormalized;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -103,4 +157,20 @@ public class User {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
 }
@@ -0,0 +1,54 @@
+package com.example.usercrud.entity;
+
+import jakarta.persistence.*;
+
+// One row per database, counted up by UserChangeLog as each user write commits
+@Entity
+@Table(name = "user_change_sequence")
+public class UserChangeSequence {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "last_assigned", nullable = false)
+    private long lastAssigned;
+
+    // Highest sequence number of a purged tombstone; cursors behind it may have missed deletes
+    @Column(name = "purged_through", nullable = false)
+    private long purgedThrough;
+
+    // Constructors
+    public UserChangeSequence() {
+    }
+
+    public UserChangeSequence(Integer id) {
+        this.id = id;
+    }
+
+    // Getters and Setters
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public long getLastAssigned() {
+        return lastAssigned;
+    }
+
+    public void setLastAssigned(long lastAssigned) {
+        this.lastAssigned = lastAssigned;
+    }
+
+    public long getPurgedThrough() {
+        return purgedThrough;
+    }
+
+    public void setPurgedThrough(long purgedThrough) {
+        this.purgedThrough = purgedThrough;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.usercrud.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Left behind by every delete so the change feed can tell consumers a user is gone
+@Entity
+@Table(name = "user_tombstones",
+        indexes = {
+                // Purge removes the oldest first
+                @Index(name = "idx_user_tombstones_deleted_at", columnList = "deleted_at, user_id"),
+                @Index(name = "idx_user_tombstones_change_seq", columnList = "change_seq, user_id")
+        })
+public class UserTombstone {
+
+    // User ids come from a sequence and are never reused, so one tombstone per id
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    // Position in the change feed, as on User
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    // Constructors
+    public UserTombstone() {
+    }
+
+    public UserTombstone(Long userId, LocalDateTime deletedAt) {
+        this.userId = userId;
+        this.deletedAt = deletedAt;
+    }
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.usercrud.exception;
+
+public class ResourceGoneException extends RuntimeException {
+    
+    public ResourceGoneException(String message) {
+        super(message);
+    }
+}
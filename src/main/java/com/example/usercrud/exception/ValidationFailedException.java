@@ -0,0 +1,18 @@
+package com.example.usercrud.exception;
+
+import java.util.Map;
+
+// Field errors found by the service itself, reported in the same shape as a rejected request body
+public class ValidationFailedException extends BadRequestException {
+
+    private final Map<String, String> errors;
+
+    public ValidationFailedException(Map<String, String> errors) {
+        super("Validation failed: " + errors);
+        this.errors = errors;
+    }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+}
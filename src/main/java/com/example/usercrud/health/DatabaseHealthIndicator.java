@@ -0,0 +1,102 @@
+package com.example.usercrud.health;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checks the database on a fixed schedule and caches the result, so health endpoints and
+ * probes never borrow a pooled connection themselves.
+ */
+@Component
+public class DatabaseHealthIndicator implements HealthIndicator {
+
+    public record Sample(boolean up, String databaseProductName, String error, Instant sampledAt) {
+    }
+
+    private final DataSource dataSource;
+    private final Duration timeout;
+    private final Duration maxAge;
+    private final AtomicReference<Sample> latest =
+            new AtomicReference<>(new Sample(false, null, "Not sampled yet", Instant.EPOCH));
+
+    @Autowired
+    public DatabaseHealthIndicator(DataSource dataSource,
+                                   @Value("${app.health.database.timeout:2s}") Duration timeout,
+                                   @Value("${app.health.database.interval:10s}") Duration interval) {
+        this.dataSource = dataSource;
+        this.timeout = timeout;
+        this.maxAge = interval.multipliedBy(3);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void sampleOnStartup() {
+        sample();
+    }
+
+    @Scheduled(fixedDelayString = "${app.health.database.interval:10s}",
+            initialDelayString = "${app.health.database.interval:10s}")
+    public void sample() {
+        // Run on a fresh virtual thread so a check stuck in getConnection cannot delay the next one
+        CompletableFuture<String> check = new CompletableFuture<>();
+        Thread.ofVirtual().name("db-health-check").start(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                if (!connection.isValid((int) Math.max(1, timeout.toSeconds()))) {
+                    throw new SQLException("Connection validation failed");
+                }
+                check.complete(connection.getMetaData().getDatabaseProductName());
+            } catch (Exception e) {
+                check.completeExceptionally(e);
+            }
+        });
+
+        try {
+            String productName = check.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            latest.set(new Sample(true, productName, null, Instant.now()));
+        } catch (TimeoutException e) {
+            latest.set(new Sample(false, null, "Database check timed out after " + timeout.toMillis() + "ms", Instant.now()));
+        } catch (ExecutionException e) {
+            latest.set(new Sample(false, null, e.getCause().getMessage(), Instant.now()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Sample current() {
+        Sample sample = latest.get();
+        if (sample.up() && sample.sampledAt().isBefore(Instant.now().minus(maxAge))) {
+            return new Sample(false, sample.databaseProductName(), "Health sample is stale", sample.sampledAt());
+        }
+        return sample;
+    }
+
+    @Override
+    public Health health() {
+        Sample sample = current();
+        Health.Builder builder = sample.up() ? Health.up() : Health.down();
+        builder.withDetail("sampledAt", sample.sampledAt().toString());
+        if (sample.databaseProductName() != null) {
+            builder.withDetail("database", sample.databaseProductName());
+        }
+        if (sample.error() != null) {
+            builder.withDetail("error", sample.error());
+        }
+        return builder.build();
+    }
+}
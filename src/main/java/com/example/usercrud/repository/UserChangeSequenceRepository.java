@@ -0,0 +1,30 @@
+package com.example.usercrud.repository;
+
+import com.example.usercrud.entity.UserChangeSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface UserChangeSequenceRepository extends JpaRepository<UserChangeSequence, Integer> {
+
+    // Locks the row until the transaction ends, so numbers are handed out in commit order
+    @Modifying
+    @Query("update UserChangeSequence s set s.lastAssigned = s.lastAssigned + 1 where s.id = 1")
+    int increment();
+
+    // Scalar queries always go to the database, unlike findById once the row is managed
+    @Query("select s.lastAssigned from UserChangeSequence s where s.id = 1")
+    Optional<Long> findLastAssigned();
+
+    @Query("select s.purgedThrough from UserChangeSequence s where s.id = 1")
+    Optional<Long> findPurgedThrough();
+
+    @Modifying
+    @Query("update UserChangeSequence s set s.purgedThrough = :sequence where s.id = 1 and s.purgedThrough < :sequence")
+    int advancePurgedThrough(@Param("sequence") long sequence);
+}
@@ -0,0 +1,98 @@
+package com.example.usercrud.repository;
+
+import com.example.usercrud.config.ShardRoutingDataSource;
+import com.example.usercrud.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Global email-to-shard table that keeps emails unique once users are spread over several
+ * databases, each of which can only enforce uk_users_email on its own rows. An email is
+ * claimed here before a shard row takes it and released after the row gives it up.
+ *
+ * <p>The table is created by db/user-email-directory.sql; see ShardingConfig.
+ *
+ * <p>The two writes are not atomic. A claim left behind by a crash between them is taken over
+ * once it is older than the claim timeout and its shard has no user with that email. Each
+ * claim is released through the Claim it was taken as, so only its holder can give it up.
+ */
+public class UserEmailDirectory {
+
+    public record Claim(String email, int shard, long claimedAtMillis) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(UserEmailDirectory.class);
+
+    private final JdbcTemplate directory;
+    private final ShardRoutingDataSource shards;
+    private final Duration claimTimeout;
+
+    public UserEmailDirectory(DataSource directoryDataSource, ShardRoutingDataSource shards, Duration claimTimeout) {
+        this.directory = new JdbcTemplate(directoryDataSource);
+        this.shards = shards;
+        this.claimTimeout = claimTimeout;
+    }
+
+    // Empty when another user, on any shard, holds the email; otherwise the claim to release
+    public Optional<Claim> claim(String email, int shard) {
+        String key = User.normalize(email);
+        // Second pass only when the holder released it between our insert and our read
+        for (int attempt = 0; attempt < 2; attempt++) {
+            long claimedAt = System.currentTimeMillis();
+            try {
+                directory.update("insert into user_email_directory (email, shard, claimed_at) values (?, ?, ?)",
+                        key, shard, claimedAt);
+                return Optional.of(new Claim(key, shard, claimedAt));
+            } catch (DuplicateKeyException e) {
+                Optional<Claim> held = find(key);
+                if (held.isPresent()) {
+                    return isAbandoned(held.get()) ? takeOver(held.get(), shard) : Optional.empty();
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Conditional on claimed_at as well, so a release that comes after the claim was taken
+    // over as abandoned leaves the new holder's claim alone
+    public void release(Claim claim) {
+        directory.update("delete from user_email_directory where email = ? and shard = ? and claimed_at = ?",
+                claim.email(), claim.shard(), claim.claimedAtMillis());
+    }
+
+    public Optional<Claim> find(String email) {
+        List<Claim> claims = directory.query("select email, shard, claimed_at from user_email_directory where email = ?",
+                (rs, row) -> new Claim(rs.getString(1), rs.getInt(2), rs.getLong(3)), User.normalize(email));
+        return claims.stream().findFirst();
+    }
+
+    private boolean isAbandoned(Claim claim) {
+        if (claim.claimedAtMillis() > System.currentTimeMillis() - claimTimeout.toMillis()
+                || claim.shard() >= shards.getShardCount()) {
+            return false;
+        }
+        Integer holders = new JdbcTemplate(shards.getShard(claim.shard())).queryForObject(
+                "select count(*) from users where email_normalized = ?", Integer.class, claim.email());
+        return holders != null && holders == 0;
+    }
+
+    // Conditional on the claim being unchanged, so two callers cannot both take it over
+    private Optional<Claim> takeOver(Claim abandoned, int shard) {
+        long claimedAt = System.currentTimeMillis();
+        boolean taken = directory.update("update user_email_directory set shard = ?, claimed_at = ? "
+                        + "where email = ? and shard = ? and claimed_at = ?",
+                shard, claimedAt, abandoned.email(), abandoned.shard(), abandoned.claimedAtMillis()) == 1;
+        if (!taken) {
+            return Optional.empty();
+        }
+        log.info("Took over abandoned email claim on shard {} for shard {}", abandoned.shard(), shard);
+        return Optional.of(new Claim(abandoned.email(), shard, claimedAt));
+    }
+}
@@ -1,10 +1,23 @@
 package com.example.usercrud.repository;
 
+import com.example.usercrud.dto.UserChangeDTO;
+import com.example.usercrud.dto.UserDTO;
 import com.example.usercrud.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -12,4 +25,145 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     
     boolean existsByEmail(String email);
+
+    // Lets conditional GETs compare ETags without hydrating the entity
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // One UPDATE per write; a null version means unconditional, otherwise it must still match
+    @Modifying
+    @Query("update User u set u.name = :name, u.email = :email, u.phone = :phone, "
+            + "u.nameNormalized = :nameKey, u.emailNormalized = :emailKey, "
+            + "u.updatedAt = :updatedAt, u.version = u.version + 1 "
+            + "where u.id = :id and (:version is null or u.version = :version)")
+    int updateById(@Param("id") Long id, @Param("name") String name, @Param("email") String email,
+                   @Param("phone") String phone, @Param("nameKey") String nameKey,
+                   @Param("emailKey") String emailKey, @Param("updatedAt") LocalDateTime updatedAt,
+                   @Param("version") Long version);
+
+    @Query("select new com.example.usercrud.dto.UserDTO(u.id, u.name, u.email, u.phone, u.version) "
+            + "from User u where u.id in :ids")
+    List<UserDTO> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Prefix search walks (key, id) in order; the prefix is lower-cased and LIKE-escaped with '!'
+    @Query("select new com.example.usercrud.dto.UserDTO(u.id, u.name, u.email, u.phone, u.version) "
+            + "from User u where u.nameNormalized like :prefix escape '!' "
+            + "and (u.nameNormalized > :afterKey or (u.nameNormalized = :afterKey and u.id > :afterId)) "
+            + "order by u.nameNormalized, u.id")
+    List<UserDTO> searchByNamePrefix(@Param("prefix") String prefix, @Param("afterKey") String afterKey,
+                                     @Param("afterId") Long afterId, Limit limit);
+
+    @Query("select new com.example.usercrud.dto.UserDTO(u.id, u.name, u.email, u.phone, u.version) "
+            + "from User u where u.emailNormalized like :prefix escape '!' "
+            + "and (u.emailNormalized > :afterKey or (u.emailNormalized = :afterKey and u.id > :afterId)) "
+            + "order by u.emailNormalized, u.id")
+    List<UserDTO> searchByEmailPrefix(@Param("prefix") String prefix, @Param("afterKey") String afterKey,
+                                      @Param("afterId") Long afterId, Limit limit);
+
+    // Deletes without the find-then-remove that the inherited deleteById performs
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int deleteUserById(@Param("id") Long id);
+
+    @Modifying
+    @Query("delete from User u where u.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from User u where u.id in :ids and u.updatedAt < :before")
+    int deleteByIdsUpdatedBefore(@Param("ids") Collection<Long> ids, @Param("before") LocalDateTime before);
+
+    @Query("select u.id from User u where u.updatedAt < :before order by u.id")
+    List<Long> findIdsUpdatedBefore(@Param("before") LocalDateTime before, Limit limit);
+
+    // Tombstones are written from the rows about to be deleted, with the same filters as the
+    // DELETE; sequence 0 marks them for UserChangeLog to stamp when the delete commits
+    @Modifying
+    @Query("insert into UserTombstone (userId, deletedAt, changeSeq) select u.id, :deletedAt, 0 from User u where u.id in :ids")
+    int insertTombstones(@Param("ids") Collection<Long> ids, @Param("deletedAt") LocalDateTime deletedAt);
+
+    @Modifying
+    @Query("insert into UserTombstone (userId, deletedAt, changeSeq) select u.id, :deletedAt, 0 from User u "
+            + "where u.id in :ids and u.updatedAt < :before")
+    int insertTombstonesUpdatedBefore(@Param("ids") Collection<Long> ids, @Param("before") LocalDateTime before,
+                                      @Param("deletedAt") LocalDateTime deletedAt);
+
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Read paths select straight into UserDTO: no managed entities, no dirty-checking snapshots
+    @Query("select new com.example.usercrud.dto.UserDTO(u.id, u.name, u.email, u.phone, u.version) "
+            + "from User u where u.id = :id")
+    Optional<UserDTO> findDtoById(@Param("id") Long id);
+
+    // Served by idx_users_email_normalized, which also carries the id
+    @Query("select new com.example.usercrud.dto.UserDTO(u.id, u.name, u.email, u.phone, u.version) "
+            + "from User u where u.emailNormalized = :email")
+    Optional<UserDTO> findDtoByEmailNormalized(@Param("email") String emailNormalized);
+
+    // Keyset page: seeks the primary key index past the cursor instead of using OFFSET
+    @Query("select new com.example.usercrud.dto.UserDTO(u.id, u.name, u.email, u.phone, u.version) "
+            + "from User u where u.id > :id order by u.id")
+    List<UserDTO> findDtoPageAfter(@Param("id") Long id, Limit limit);
+
+    // Change feed keyset over (change_seq, id); rows numbered past the horizon are left for later
+    @Query("select new com.example.usercrud.dto.UserChangeDTO(u.id, u.name, u.email, u.phone, u.version, u.updatedAt, u.changeSeq) "
+            + "from User u where (u.changeSeq > :afterSeq or (u.changeSeq = :afterSeq and u.id > :afterId)) "
+            + "and u.changeSeq <= :horizon order by u.changeSeq, u.id")
+    List<UserChangeDTO> findChangesAfter(@Param("afterSeq") long afterSeq, @Param("afterId") long afterId,
+                                         @Param("horizon") long horizon, Limit limit);
+
+    // Flushes first, so rows inserted by the transaction but not yet flushed are stamped too
+    @Modifying(flushAutomatically = true)
+    @Query("update User u set u.changeSeq = :sequence where u.id in :ids")
+    int stampChangeSeq(@Param("ids") Collection<Long> ids, @Param("sequence") long sequence);
+
+    // Rows written before the change sequence existed, with stamps in the server's local time
+    interface LegacyStamps {
+        Long getId();
+
+        LocalDateTime getCreatedAt();
+
+        LocalDateTime getUpdatedAt();
+    }
+
+    @Query("select u.id as id, u.createdAt as createdAt, u.updatedAt as updatedAt "
+            + "from User u where u.changeSeq is null order by u.id")
+    List<LegacyStamps> findLegacyStamps(Limit limit);
+
+    // Skips a row a newer write has sequenced in the meantime; its updated_at is already UTC
+    @Modifying
+    @Query("update User u set u.createdAt = :createdAt, u.updatedAt = :updatedAt, u.changeSeq = 0 "
+            + "where u.id = :id and u.changeSeq is null")
+    int convertLegacyStamps(@Param("id") Long id, @Param("createdAt") LocalDateTime createdAt,
+                            @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Rows written before the search keys existed; search and email lookups cannot see them
+    interface MissingSearchKeys {
+        Long getId();
+
+        String getName();
+
+        String getEmail();
+    }
+
+    @Query("select u.id as id, u.name as name, u.email as email "
+            + "from User u where u.nameNormalized is null or u.emailNormalized is null order by u.id")
+    List<MissingSearchKeys> findMissingSearchKeys(Limit limit);
+
+    // Skips a row a newer write has keyed in the meantime; every write sets both keys
+    @Modifying
+    @Query("update User u set u.nameNormalized = :nameKey, u.emailNormalized = :emailKey "
+            + "where u.id = :id and (u.nameNormalized is null or u.emailNormalized is null)")
+    int fillSearchKeys(@Param("id") Long id, @Param("nameKey") String nameKey, @Param("emailKey") String emailKey);
+
+    // Forward-only cursor for exports; must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.usercrud.dto.UserDTO(u.id, u.name, u.email, u.phone, u.version) "
+            + "from User u order by u.id")
+    Stream<UserDTO> streamAllDtosOrderedById();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
 }
@@ -0,0 +1,47 @@
+package com.example.usercrud.repository;
+
+import com.example.usercrud.dto.UserChangeDTO;
+import com.example.usercrud.entity.UserTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UserTombstoneRepository extends JpaRepository<UserTombstone, Long> {
+
+    // Same keyset shape as UserRepository.findChangesAfter, over (change_seq, user_id)
+    @Query("select new com.example.usercrud.dto.UserChangeDTO(t.userId, t.deletedAt, t.changeSeq) "
+            + "from UserTombstone t where (t.changeSeq > :afterSeq or (t.changeSeq = :afterSeq and t.userId > :afterId)) "
+            + "and t.changeSeq <= :horizon order by t.changeSeq, t.userId")
+    List<UserChangeDTO> findChangesAfter(@Param("afterSeq") long afterSeq, @Param("afterId") long afterId,
+                                         @Param("horizon") long horizon, Limit limit);
+
+    // Only tombstones still waiting for a number, i.e. inserted by the committing transaction
+    @Modifying(flushAutomatically = true)
+    @Query("update UserTombstone t set t.changeSeq = :sequence where t.userId in :ids and t.changeSeq = 0")
+    int stampChangeSeq(@Param("ids") Collection<Long> ids, @Param("sequence") long sequence);
+
+    // Oldest first, so a purge that stops part way leaves the newest tombstones
+    @Query("select t from UserTombstone t where t.deletedAt < :before order by t.deletedAt, t.userId")
+    List<UserTombstone> findDeletedBefore(@Param("before") LocalDateTime before, Limit limit);
+
+    @Modifying
+    @Query("delete from UserTombstone t where t.userId in :ids")
+    int deleteByUserIds(@Param("ids") Collection<Long> ids);
+
+    // Rows written before the change sequence existed, with stamps in the server's local time
+    @Query("select t from UserTombstone t where t.changeSeq is null order by t.userId")
+    List<UserTombstone> findLegacy(Limit limit);
+
+    @Modifying
+    @Query("update UserTombstone t set t.deletedAt = :deletedAt, t.changeSeq = 0 "
+            + "where t.userId = :id and t.changeSeq is null")
+    int convertLegacyStamp(@Param("id") Long id, @Param("deletedAt") LocalDateTime deletedAt);
+}
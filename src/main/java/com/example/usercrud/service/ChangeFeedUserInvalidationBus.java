@@ -0,0 +1,87 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.cache.UserInvalidation;
+import com.example.usercrud.cache.UserInvalidationBus;
+import com.example.usercrud.dto.UserChangeDTO;
+import com.example.usercrud.dto.UserChangePageDTO;
+import com.example.usercrud.exception.ResourceGoneException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Invalidation bus for several replicas without a broker. The change feed already lists every
+ * committed write, so each instance follows it from startup and turns each change into an
+ * invalidation. Writes made here are also delivered at once; writes made elsewhere arrive
+ * within the poll interval of their commit.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cache.users.invalidation", havingValue = "change-feed")
+public class ChangeFeedUserInvalidationBus implements UserInvalidationBus {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedUserInvalidationBus.class);
+
+    private final UserChangeFeedService changeFeed;
+    private final List<Consumer<UserInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    // Only the scheduler thread moves it, one poll at a time
+    private String cursor;
+
+    @Autowired
+    public ChangeFeedUserInvalidationBus(UserChangeFeedService changeFeed) {
+        this.changeFeed = changeFeed;
+        // Nothing is cached yet, so earlier changes need not be replayed
+        this.cursor = changeFeed.currentCursor();
+    }
+
+    @Override
+    public void publish(UserInvalidation invalidation) {
+        deliver(invalidation);
+    }
+
+    @Override
+    public void subscribe(Consumer<UserInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Scheduled(fixedDelayString = "${app.change-feed.poll-interval:1s}")
+    public void poll() {
+        try {
+            UserChangePageDTO page;
+            do {
+                page = changeFeed.getChanges(cursor, BATCH_SIZE);
+                page.getChanges().forEach(change -> deliver(toInvalidation(change)));
+                cursor = page.getNextCursor();
+            } while (page.isHasMore());
+        } catch (ResourceGoneException e) {
+            // Stalled past the tombstone retention, so some deletes can no longer be seen
+            log.warn("User change feed cursor expired; dropping every cached user");
+            cursor = changeFeed.currentCursor();
+            deliver(UserInvalidation.all());
+        } catch (RuntimeException e) {
+            log.warn("Could not read the user change feed; retrying on the next poll", e);
+        }
+    }
+
+    private void deliver(UserInvalidation invalidation) {
+        subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+    }
+
+    private static UserInvalidation toInvalidation(UserChangeDTO change) {
+        long changedAt = change.getChangedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+        if (change.getType() == UserChangeDTO.Type.DELETED) {
+            return new UserInvalidation(change.getId(), UserInvalidation.DELETED, null, changedAt);
+        }
+        return new UserInvalidation(change.getId(), change.getUser().getVersion(), change.getUser().getEmail(), changedAt);
+    }
+}
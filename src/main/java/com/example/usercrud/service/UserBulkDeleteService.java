@@ -0,0 +1,132 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.cache.UserCache;
+import com.example.usercrud.cache.UserPrefixIndex;
+import com.example.usercrud.dto.BulkDeleteProgressDTO;
+import com.example.usercrud.dto.BulkDeleteRequestDTO;
+import com.example.usercrud.exception.BadRequestException;
+import com.example.usercrud.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Deletes users in bounded chunks, each in its own short transaction, so a large delete
+ * never holds locks on the whole set or loads entities. Chunks that already committed stay
+ * deleted if a later one fails; rerunning the same request picks up where it stopped.
+ */
+@Service
+public class UserBulkDeleteService {
+
+    public static final int MAX_IDS = 100_000;
+
+    private static final Logger log = LoggerFactory.getLogger(UserBulkDeleteService.class);
+
+    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final UserPrefixIndex prefixIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserShards shards;
+    private final UserChangeLog changeLog;
+    private final int chunkSize;
+
+    @Autowired
+    public UserBulkDeleteService(UserRepository userRepository, UserCache userCache, UserPrefixIndex prefixIndex,
+                                 PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+                                 UserShards shards, UserChangeLog changeLog,
+                                 @Value("${app.bulk-delete.chunk-size:500}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.prefixIndex = prefixIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.shards = shards;
+        this.changeLog = changeLog;
+        this.chunkSize = chunkSize;
+    }
+
+    public void validate(BulkDeleteRequestDTO request) {
+        // Chunks would have to be split by shard and their emails released from the directory
+        if (shards.isEnabled()) {
+            throw new BadRequestException("Bulk delete is not available while users are sharded");
+        }
+        boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+        if (!hasIds && request.getUpdatedBefore() == null) {
+            throw new BadRequestException("Bulk delete needs ids, updatedBefore, or both");
+        }
+        if (hasIds && request.getIds().size() > MAX_IDS) {
+            throw new BadRequestException("Bulk delete must not exceed " + MAX_IDS + " ids");
+        }
+    }
+
+    public long delete(BulkDeleteRequestDTO request, Consumer<BulkDeleteProgressDTO> progress) {
+        validate(request);
+        LocalDateTime updatedBefore = request.getUpdatedBefore();
+        List<Long> ids = request.getIds();
+        long total = 0;
+        int chunk = 0;
+
+        if (ids != null && !ids.isEmpty()) {
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<Long> chunkIds = List.copyOf(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+                int deleted = deleteChunk(chunkIds, updatedBefore);
+                total += deleted;
+                progress.accept(new BulkDeleteProgressDTO(++chunk, deleted, total, false));
+            }
+        } else {
+            // Deleted rows drop out of the filter, so every pass re-reads from the start
+            while (true) {
+                List<Long> chunkIds = userRepository.findIdsUpdatedBefore(updatedBefore, Limit.of(chunkSize));
+                if (chunkIds.isEmpty()) {
+                    break;
+                }
+                int deleted = deleteChunk(chunkIds, updatedBefore);
+                total += deleted;
+                progress.accept(new BulkDeleteProgressDTO(++chunk, deleted, total, false));
+                if (chunkIds.size() < chunkSize) {
+                    break;
+                }
+            }
+        }
+
+        log.info("Bulk delete removed {} users in {} chunks", total, chunk);
+        progress.accept(new BulkDeleteProgressDTO(chunk, 0, total, true));
+        return total;
+    }
+
+    // The filter is re-applied in the DELETE so a row touched since it was selected survives;
+    // tombstones for the change feed are copied from the same rows just before
+    private int deleteChunk(List<Long> ids, LocalDateTime updatedBefore) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+            int count;
+            if (updatedBefore == null) {
+                userRepository.insertTombstones(ids, now);
+                count = userRepository.deleteByIds(ids);
+            } else {
+                userRepository.insertTombstonesUpdatedBefore(ids, updatedBefore, now);
+                count = userRepository.deleteByIdsUpdatedBefore(ids, updatedBefore);
+            }
+            changeLog.recordTombstones(ids);
+            userCache.evictAll(ids);
+            prefixIndex.removeAll(ids);
+            if (count > 0) {
+                eventPublisher.publishEvent(new UsersChangedEvent());
+            }
+            return count;
+        });
+        return deleted == null ? 0 : deleted;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.entity.UserTombstone;
+import com.example.usercrud.repository.UserRepository;
+import com.example.usercrud.repository.UserTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Brings rows written before the change sequence into the change feed. Those rows have no
+ * change_seq, and their timestamps are in the zone of the server that wrote them (legacy-zone,
+ * by default this JVM's). Each chunk converts the timestamps to UTC and takes a change number
+ * in one transaction, so the rows reach the feed as ordinary changes and an interrupted run
+ * resumes where it stopped. Rows rewritten before their turn already carry UTC stamps and a
+ * number and are left alone.
+ *
+ * <p>Runs once at startup on a thread of its own, so a large table neither delays startup nor
+ * holds up scheduled work. It also seeds each database's sequence row first, so concurrent
+ * first writes do not race to insert it.
+ */
+@Component
+public class UserChangeBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(UserChangeBackfill.class);
+
+    private final UserRepository userRepository;
+    private final UserTombstoneRepository tombstoneRepository;
+    private final UserChangeLog changeLog;
+    private final UserShards shards;
+    private final ZoneId legacyZone;
+    private final int chunkSize;
+
+    @Autowired
+    public UserChangeBackfill(UserRepository userRepository, UserTombstoneRepository tombstoneRepository,
+                              UserChangeLog changeLog, UserShards shards,
+                              @Value("${app.change-feed.legacy-zone:}") String legacyZone,
+                              @Value("${app.change-feed.backfill-chunk-size:500}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.changeLog = changeLog;
+        this.shards = shards;
+        this.legacyZone = legacyZone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(legacyZone);
+        this.chunkSize = chunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (int shard = 0; shard < shards.count(); shard++) {
+            shards.update(shard, () -> {
+                changeLog.ensureSequence();
+                return null;
+            });
+        }
+        Thread.ofVirtual().name("user-change-backfill").start(() -> {
+            try {
+                backfill();
+            } catch (RuntimeException e) {
+                log.warn("Backfilling the user change feed stopped; it resumes on the next start", e);
+            }
+        });
+    }
+
+    // Rows brought into the feed, on every shard
+    public long backfill() {
+        long total = 0;
+        for (int shard = 0; shard < shards.count(); shard++) {
+            int chunk;
+            do {
+                chunk = shards.update(shard, this::backfillUsers);
+                total += chunk;
+            } while (chunk == chunkSize);
+            do {
+                chunk = shards.update(shard, this::backfillTombstones);
+                total += chunk;
+            } while (chunk == chunkSize);
+        }
+        if (total > 0) {
+            log.info("Brought {} users and tombstones from before the change sequence into the feed, "
+                    + "converting their timestamps from {} to UTC", total, legacyZone);
+        }
+        return total;
+    }
+
+    private int backfillUsers() {
+        List<UserRepository.LegacyStamps> rows = userRepository.findLegacyStamps(Limit.of(chunkSize));
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (UserRepository.LegacyStamps row : rows) {
+            userRepository.convertLegacyStamps(row.getId(), toUtc(row.getCreatedAt()), toUtc(row.getUpdatedAt()));
+            ids.add(row.getId());
+        }
+        if (!ids.isEmpty()) {
+            changeLog.recordUsers(ids);
+        }
+        return rows.size();
+    }
+
+    private int backfillTombstones() {
+        List<UserTombstone> tombstones = tombstoneRepository.findLegacy(Limit.of(chunkSize));
+        List<Long> ids = new ArrayList<>(tombstones.size());
+        for (UserTombstone tombstone : tombstones) {
+            tombstoneRepository.convertLegacyStamp(tombstone.getUserId(), toUtc(tombstone.getDeletedAt()));
+            ids.add(tombstone.getUserId());
+        }
+        if (!ids.isEmpty()) {
+            changeLog.recordTombstones(ids);
+        }
+        return tombstones.size();
+    }
+
+    // Per row, since the zone's offset may differ across daylight saving changes
+    private LocalDateTime toUtc(LocalDateTime local) {
+        return local == null ? null : local.atZone(legacyZone).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+}
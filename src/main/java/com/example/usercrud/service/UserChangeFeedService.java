@@ -0,0 +1,264 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.dto.UserChangeDTO;
+import com.example.usercrud.dto.UserChangePageDTO;
+import com.example.usercrud.entity.UserTombstone;
+import com.example.usercrud.exception.BadRequestException;
+import com.example.usercrud.exception.ResourceGoneException;
+import com.example.usercrud.repository.UserChangeSequenceRepository;
+import com.example.usercrud.repository.UserRepository;
+import com.example.usercrud.repository.UserTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Changes since a cursor, in the order they committed. UserChangeLog numbers every user write
+ * as it commits; the feed reads live users in (change_seq, id) order merged with tombstones in
+ * (change_seq, user_id) order, up to the number last handed out when the page is read. Every
+ * write numbered up to there has committed, so a page never skips a write that commits after
+ * it was read, however long that write ran.
+ *
+ * <p>Each shard numbers its own writes, so a cursor holds one position per shard, and a page
+ * interleaves the shards by change time. A consumer that has seen everything up to a shard's
+ * horizon gets the horizon as its position there, so idle consumers keep moving forward and
+ * only expire once the tombstone purge passes them.
+ *
+ * <p>Cursors issued before the change sequence carried a timestamp. They are still accepted:
+ * one older than the tombstone retention is gone, and any other starts again from the
+ * beginning, so its consumer sees some changes twice rather than missing any.
+ */
+@Service
+// Not read-only: the replica may lag past the horizon, and the cursor would then skip rows
+@Transactional
+public class UserChangeFeedService {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    // After (sequence, id) in a shard's change order; (n, MAX_VALUE) is past all of number n
+    private record Position(long sequence, long id) {
+
+        private static final Position ORIGIN = new Position(0, Long.MAX_VALUE);
+
+        private boolean isBefore(Position other) {
+            return sequence < other.sequence() || (sequence == other.sequence() && id < other.id());
+        }
+    }
+
+    // One shard's changes in change order, and the number they were read up to
+    private record Run(List<UserChangeDTO> changes, long horizon, boolean complete) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(UserChangeFeedService.class);
+
+    private static final Comparator<UserChangeDTO> CHANGE_ORDER =
+            Comparator.comparingLong(UserChangeDTO::getSequence).thenComparing(UserChangeDTO::getId);
+
+    private static final Comparator<UserChangeDTO> TIME_ORDER =
+            Comparator.comparing(UserChangeDTO::getChangedAt).thenComparing(UserChangeDTO::getId);
+
+    private final UserRepository userRepository;
+    private final UserTombstoneRepository tombstoneRepository;
+    private final UserChangeSequenceRepository sequenceRepository;
+    private final UserShards shards;
+    private final Duration tombstoneRetention;
+    private final int purgeChunkSize;
+
+    @Autowired
+    public UserChangeFeedService(UserRepository userRepository, UserTombstoneRepository tombstoneRepository,
+                                 UserChangeSequenceRepository sequenceRepository, UserShards shards,
+                                 @Value("${app.change-feed.tombstone-retention:7d}") Duration tombstoneRetention,
+                                 @Value("${app.change-feed.purge-chunk-size:1000}") int purgeChunkSize) {
+        this.userRepository = userRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.sequenceRepository = sequenceRepository;
+        this.shards = shards;
+        this.tombstoneRetention = tombstoneRetention;
+        this.purgeChunkSize = purgeChunkSize;
+    }
+
+    public UserChangePageDTO getChanges(String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Position[] after = decodeCursor(cursor);
+
+        // One extra change per shard is enough to know whether the merged page is full
+        Limit limit = Limit.of(pageSize + 1);
+        List<Run> runs = shards.queryEach(shard -> {
+            // Read first: every change numbered up to the horizon has committed by now
+            long horizon = sequenceRepository.findLastAssigned().orElse(0L);
+            Position from = after[shard];
+            if (cursor != null && !cursor.isBlank()) {
+                checkNotPurged(from);
+            }
+            List<UserChangeDTO> found = new ArrayList<>(
+                    userRepository.findChangesAfter(from.sequence(), from.id(), horizon, limit));
+            found.addAll(tombstoneRepository.findChangesAfter(from.sequence(), from.id(), horizon, limit));
+            found.sort(CHANGE_ORDER);
+            // Only the first limit of the two sources together are known to be a prefix of the shard's changes
+            boolean complete = found.size() <= pageSize;
+            return new Run(complete ? found : found.subList(0, pageSize + 1), horizon, complete);
+        });
+
+        // Takes each shard's changes in order, so every position below stays a prefix of its shard
+        List<UserChangeDTO> page = UserShards.merge(runs.stream().map(Run::changes).toList(), TIME_ORDER, pageSize);
+        Position[] next = after.clone();
+        int[] taken = new int[runs.size()];
+        for (UserChangeDTO change : page) {
+            int shard = shards.shardOf(change.getId());
+            next[shard] = new Position(change.getSequence(), change.getId());
+            taken[shard]++;
+            change.setCursor(encodeCursor(next));
+        }
+        boolean hasMore = false;
+        for (int shard = 0; shard < runs.size(); shard++) {
+            Run run = runs.get(shard);
+            if (run.complete() && taken[shard] == run.changes().size()) {
+                next[shard] = new Position(run.horizon(), Long.MAX_VALUE);
+            } else {
+                hasMore = true;
+            }
+        }
+        return new UserChangePageDTO(page, encodeCursor(next), hasMore);
+    }
+
+    // Validates a cursor up front, e.g. before a stream commits its 200 status
+    public void checkCursorUsable(String cursor) {
+        Position[] after = decodeCursor(cursor);
+        if (cursor != null && !cursor.isBlank()) {
+            shards.queryEach(shard -> {
+                checkNotPurged(after[shard]);
+                return null;
+            });
+        }
+    }
+
+    // Skips history: the next page holds only changes that commit from now on
+    public String currentCursor() {
+        return encodeCursor(shards.queryEach(shard -> new Position(
+                sequenceRepository.findLastAssigned().orElse(0L), Long.MAX_VALUE)).toArray(Position[]::new));
+    }
+
+    // Oldest first and in chunks, each in a transaction of its own, so a large backlog of
+    // tombstones never holds locks on all of them at once
+    @Scheduled(fixedDelayString = "${app.change-feed.purge-interval:1h}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void purgeTombstones() {
+        LocalDateTime before = LocalDateTime.now(ZoneOffset.UTC).minus(tombstoneRetention);
+        long purged = 0;
+        for (int shard = 0; shard < shards.count(); shard++) {
+            int chunk;
+            do {
+                chunk = shards.update(shard, () -> purgeChunk(before));
+                purged += chunk;
+            } while (chunk == purgeChunkSize);
+        }
+        if (purged > 0) {
+            log.info("Purged {} user tombstones older than {}", purged, tombstoneRetention);
+        }
+    }
+
+    private int purgeChunk(LocalDateTime before) {
+        List<UserTombstone> oldest = tombstoneRepository.findDeletedBefore(before, Limit.of(purgeChunkSize));
+        if (oldest.isEmpty()) {
+            return 0;
+        }
+        // Committed with the delete, so a cursor cannot pass the purged tombstones unnoticed
+        oldest.stream()
+                .map(UserTombstone::getChangeSeq)
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .max()
+                .ifPresent(sequenceRepository::advancePurgedThrough);
+        tombstoneRepository.deleteByUserIds(oldest.stream().map(UserTombstone::getUserId).toList());
+        return oldest.size();
+    }
+
+    // A position short of the last purged tombstone may have missed a delete
+    private void checkNotPurged(Position position) {
+        long purgedThrough = sequenceRepository.findPurgedThrough().orElse(0L);
+        if (purgedThrough > 0 && position.isBefore(new Position(purgedThrough, Long.MAX_VALUE))) {
+            throw cursorGone();
+        }
+    }
+
+    private ResourceGoneException cursorGone() {
+        return new ResourceGoneException("Cursor is older than the tombstone retention of " + tombstoneRetention
+                + "; resync from GET /api/users and follow the feed without a cursor");
+    }
+
+    // Change cursors carry "<sequence>.<id>" for each shard, comma-separated in shard order
+    private static String encodeCursor(Position[] positions) {
+        String text = Arrays.stream(positions)
+                .map(position -> position.sequence() + "." + position.id())
+                .collect(Collectors.joining(","));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Position[] decodeCursor(String cursor) {
+        Position[] positions = new Position[shards.count()];
+        Arrays.fill(positions, Position.ORIGIN);
+        if (cursor == null || cursor.isBlank()) {
+            return positions;
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+        int legacy = decoded.indexOf(':');
+        if (legacy >= 0) {
+            return decodeLegacyCursor(cursor, decoded.substring(legacy + 1), positions);
+        }
+        String[] parts = decoded.split(",", -1);
+        // Issued while users were spread over a different number of shards
+        if (parts.length != positions.length) {
+            throw cursorGone();
+        }
+        try {
+            for (int shard = 0; shard < parts.length; shard++) {
+                int separator = parts[shard].indexOf('.');
+                positions[shard] = new Position(Long.parseLong(parts[shard].substring(0, separator)),
+                        Long.parseLong(parts[shard].substring(separator + 1)));
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+        return positions;
+    }
+
+    // "<id>:<timestamp>" from before the change sequence, stamped in UTC or the server's zone;
+    // either way a day's difference cannot matter against the retention
+    private Position[] decodeLegacyCursor(String cursor, String time, Position[] origin) {
+        LocalDateTime after;
+        try {
+            after = LocalDateTime.parse(time);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+        if (after.isBefore(LocalDateTime.now(ZoneOffset.UTC).minus(tombstoneRetention).minusDays(1))) {
+            throw cursorGone();
+        }
+        return origin;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.entity.UserChangeSequence;
+import com.example.usercrud.repository.UserChangeSequenceRepository;
+import com.example.usercrud.repository.UserRepository;
+import com.example.usercrud.repository.UserTombstoneRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Numbers user writes in the order they commit, for the change feed. A write records the
+ * users and tombstones it touched; just before its transaction commits they are stamped with
+ * the next number from the database's user_change_sequence row. Taking the number locks that
+ * row until the commit, so no other transaction can take the next number before this one has
+ * committed: a reader that sees number n sees every write numbered n or lower, however long
+ * each write took. Rolled-back writes never take a number.
+ *
+ * <p>Each shard has its own sequence, and the transaction's connection decides which one.
+ */
+@Component
+public class UserChangeLog {
+
+    // Keeps IN lists well below driver and optimizer limits
+    private static final int STAMP_CHUNK = 1000;
+
+    private final UserRepository userRepository;
+    private final UserTombstoneRepository tombstoneRepository;
+    private final UserChangeSequenceRepository sequenceRepository;
+
+    @Autowired
+    public UserChangeLog(UserRepository userRepository, UserTombstoneRepository tombstoneRepository,
+                         UserChangeSequenceRepository sequenceRepository) {
+        this.userRepository = userRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.sequenceRepository = sequenceRepository;
+    }
+
+    public void recordUser(Long id) {
+        pending().users.add(id);
+    }
+
+    public void recordUsers(Collection<Long> ids) {
+        pending().users.addAll(ids);
+    }
+
+    // Only tombstones inserted by this transaction are stamped; see UserRepository.insertTombstones
+    public void recordTombstones(Collection<Long> ids) {
+        pending().tombstones.addAll(ids);
+    }
+
+    // Seeds the sequence row of the current database; done at startup so that concurrent
+    // first writes do not race to insert it
+    public void ensureSequence() {
+        if (!sequenceRepository.existsById(UserChangeSequence.ID)) {
+            sequenceRepository.saveAndFlush(new UserChangeSequence(UserChangeSequence.ID));
+        }
+    }
+
+    private long nextSequence() {
+        if (sequenceRepository.increment() == 0) {
+            ensureSequence();
+            sequenceRepository.increment();
+        }
+        return sequenceRepository.findLastAssigned().orElseThrow();
+    }
+
+    // One synchronization per transaction, found again by later writes in the same one; a
+    // REQUIRES_NEW transaction has a list of its own, so its writes get a number of their own
+    private Pending pending() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("User writes must run in a transaction to reach the change feed");
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Pending pending) {
+                return pending;
+            }
+        }
+        Pending pending = new Pending();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private final class Pending implements TransactionSynchronization {
+
+        private final Set<Long> users = new LinkedHashSet<>();
+        private final Set<Long> tombstones = new LinkedHashSet<>();
+
+        // The stamping UPDATEs flush the persistence context first, so rows still waiting
+        // to be inserted are stamped too
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (users.isEmpty() && tombstones.isEmpty()) {
+                return;
+            }
+            long sequence = nextSequence();
+            inChunks(users, ids -> userRepository.stampChangeSeq(ids, sequence));
+            inChunks(tombstones, ids -> tombstoneRepository.stampChangeSeq(ids, sequence));
+        }
+    }
+
+    private static void inChunks(Set<Long> ids, Consumer<List<Long>> work) {
+        List<Long> all = new ArrayList<>(ids);
+        for (int from = 0; from < all.size(); from += STAMP_CHUNK) {
+            work.accept(all.subList(from, Math.min(from + STAMP_CHUNK, all.size())));
+        }
+    }
+}
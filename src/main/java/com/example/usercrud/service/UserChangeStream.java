@@ -0,0 +1,207 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.dto.UserChangeDTO;
+import com.example.usercrud.dto.UserChangePageDTO;
+import com.example.usercrud.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-Sent Events on top of the change feed. Every subscriber keeps its own cursor, sent as
+ * each event's id, so a reconnecting EventSource resumes through Last-Event-ID. Commits on this
+ * instance wake the dispatcher straight away; the poll interval catches writes made by other
+ * instances. Each subscriber is served on its own virtual thread, so a slow reader only
+ * delays itself.
+ */
+@Component
+public class UserChangeStream implements SmartLifecycle, MeterBinder {
+
+    public static final int MAX_SUBSCRIBERS = 100;
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final Logger log = LoggerFactory.getLogger(UserChangeStream.class);
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean busy = new AtomicBoolean();
+        private volatile String cursor;
+        private volatile long lastSentNanos = System.nanoTime();
+
+        private Subscriber(SseEmitter emitter, String cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+
+    private final UserChangeFeedService changeFeed;
+    private final Duration pollInterval;
+    private final long heartbeatNanos;
+    private final Duration streamTimeout;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Semaphore nudges = new Semaphore(0);
+
+    private volatile boolean running;
+    private Thread dispatcher;
+    private ExecutorService senders;
+
+    @Autowired
+    public UserChangeStream(UserChangeFeedService changeFeed,
+                            @Value("${app.change-feed.poll-interval:1s}") Duration pollInterval,
+                            @Value("${app.change-feed.heartbeat-interval:15s}") Duration heartbeatInterval,
+                            @Value("${app.change-feed.stream-timeout:30m}") Duration streamTimeout) {
+        this.changeFeed = changeFeed;
+        this.pollInterval = pollInterval;
+        this.heartbeatNanos = heartbeatInterval.toNanos();
+        this.streamTimeout = streamTimeout;
+    }
+
+    public SseEmitter subscribe(String cursor) {
+        if (subscribers.size() >= MAX_SUBSCRIBERS) {
+            throw new ServiceOverloadedException("Too many change stream subscribers; retry later", 5);
+        }
+        changeFeed.checkCursorUsable(cursor);
+
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, cursor);
+        // The client reconnects with Last-Event-ID after a timeout, so just end the response
+        emitter.onTimeout(emitter::complete);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        nudge();
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsersChanged(UsersChangedEvent event) {
+        nudge();
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        senders = Executors.newVirtualThreadPerTaskExecutor();
+        dispatcher = Thread.ofPlatform().name("user-change-stream").daemon().start(this::dispatch);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        nudges.release();
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("user.changes.subscribers", this, UserChangeStream::getSubscriberCount)
+                .description("Open change stream connections")
+                .register(registry);
+    }
+
+    private void nudge() {
+        if (nudges.availablePermits() == 0) {
+            nudges.release();
+        }
+    }
+
+    private void dispatch() {
+        while (running) {
+            try {
+                // A nudge comes after the commit, so the change that sent it can be served at once
+                nudges.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                nudges.drainPermits();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            for (Subscriber subscriber : subscribers) {
+                // Skip subscribers still busy with the previous round
+                if (subscriber.busy.compareAndSet(false, true)) {
+                    senders.execute(() -> {
+                        try {
+                            send(subscriber);
+                        } finally {
+                            subscriber.busy.set(false);
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            UserChangePageDTO page;
+            boolean sent = false;
+            do {
+                page = changeFeed.getChanges(subscriber.cursor, BATCH_SIZE);
+                for (UserChangeDTO change : page.getChanges()) {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(change.getCursor())
+                            .name(change.getType().name().toLowerCase(Locale.ROOT))
+                            .data(change, MediaType.APPLICATION_JSON));
+                    sent = true;
+                }
+                subscriber.cursor = page.getNextCursor();
+            } while (page.isHasMore());
+
+            long now = System.nanoTime();
+            if (sent) {
+                subscriber.lastSentNanos = now;
+            } else if (now - subscriber.lastSentNanos >= heartbeatNanos) {
+                // Keeps proxies from closing an idle stream and moves the client's Last-Event-ID forward
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(subscriber.cursor)
+                        .name("heartbeat")
+                        .data(Map.of(), MediaType.APPLICATION_JSON));
+                subscriber.lastSentNanos = now;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away or the emitter already completed
+            subscribers.remove(subscriber);
+        } catch (RuntimeException e) {
+            log.warn("Change stream subscriber failed", e);
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+}
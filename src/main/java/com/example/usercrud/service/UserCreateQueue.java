@@ -0,0 +1,223 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.dto.BatchItemResultDTO;
+import com.example.usercrud.dto.BatchResultDTO;
+import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.exception.BadRequestException;
+import com.example.usercrud.exception.DuplicateEmailException;
+import com.example.usercrud.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Optional group commit for single creates. Callers park on a future while one writer thread
+ * drains the queue every max-delay or max-batch items and inserts the whole group through
+ * createUsers, in one transaction with JDBC-batched inserts. A future completes only after
+ * that transaction commits, so a 201 still means the row is durable. A create still queued
+ * after max-wait is withdrawn and answered 503; one whose group is already being written
+ * waits for that group, so the caller's answer always matches what was stored.
+ */
+@Component
+public class UserCreateQueue implements SmartLifecycle, MeterBinder {
+
+    private record Pending(UserDTO user, CompletableFuture<UserDTO> result) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(UserCreateQueue.class);
+
+    private final ObjectProvider<UserService> userService;
+    private final boolean enabled;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final long maxWaitNanos;
+
+    private volatile boolean running;
+    private volatile DistributionSummary batchSizes;
+    private Thread writer;
+
+    @Autowired
+    public UserCreateQueue(ObjectProvider<UserService> userService,
+                           @Value("${app.group-commit.enabled:false}") boolean enabled,
+                           @Value("${app.group-commit.capacity:10000}") int capacity,
+                           @Value("${app.group-commit.max-batch:100}") int maxBatch,
+                           @Value("${app.group-commit.max-delay:2ms}") Duration maxDelay,
+                           @Value("${app.group-commit.max-wait:5s}") Duration maxWait) {
+        this.userService = userService;
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Blocks the caller until its group has committed or failed; only a create that never
+    // left the queue gives up after max-wait
+    public UserDTO submit(UserDTO user) {
+        Pending pending = new Pending(user, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            throw new ServiceOverloadedException("User create queue is full; retry later", 1);
+        }
+        try {
+            try {
+                return pending.result().get(maxWaitNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Removed from the queue means never written. Otherwise the writer holds it, and a
+                // 503 now could be followed by its commit, so a retry would see its own row as a 409
+                if (queue.remove(pending)) {
+                    throw new ServiceOverloadedException("User create timed out in the group commit queue; retry later", 1);
+                }
+            }
+            return pending.result().get();
+        } catch (InterruptedException e) {
+            queue.remove(pending);
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException("Interrupted while waiting for the group commit", 1);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("user-group-commit").daemon().start(this::drain);
+    }
+
+    @Override
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        // The writer finishes whatever is already queued before it exits
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stop after the web server has drained in-flight requests, so none of them is cut off
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("user.create.queue.depth", queue, BlockingQueue::size)
+                .description("Creates waiting for the next group commit")
+                .register(registry);
+        batchSizes = DistributionSummary.builder("user.create.group.size")
+                .description("Creates written per group commit")
+                .register(registry);
+    }
+
+    private void drain() {
+        List<Pending> group = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                // Linger briefly so callers arriving within max-delay share the commit
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (group.size() < maxBatch) {
+                    queue.drainTo(group, maxBatch - group.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (group.size() >= maxBatch || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        group.add(next);
+                    }
+                }
+                write(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Group commit writer failed", e);
+                group.forEach(pending -> pending.result().completeExceptionally(e));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending> group) {
+        if (batchSizes != null) {
+            batchSizes.record(group.size());
+        }
+        BatchResultDTO result;
+        try {
+            result = userService.getObject().createUsers(group.stream().map(Pending::user).toList());
+        } catch (RuntimeException e) {
+            // createUsers settles races and shard failures per item, so it only throws before
+            // storing anything; retrying items on their own could not tell them apart from rows
+            // a partial group had committed
+            log.warn("Group of {} creates failed", group.size(), e);
+            group.forEach(pending -> pending.result().completeExceptionally(e));
+            return;
+        }
+
+        for (int i = 0; i < group.size(); i++) {
+            Pending pending = group.get(i);
+            BatchItemResultDTO item = result.getResults().get(i);
+            switch (item.getStatus()) {
+                case CREATED -> pending.result().complete(item.getUser());
+                case CONFLICT -> pending.result().completeExceptionally(
+                        new DuplicateEmailException("Email already exists: " + pending.user().getEmail()));
+                case INVALID -> pending.result().completeExceptionally(new BadRequestException(item.getMessage()));
+                // Not stored; one attempt on its own gives this caller the actual error
+                case FAILED -> insertAlone(pending);
+            }
+        }
+    }
+
+    private void insertAlone(Pending pending) {
+        try {
+            pending.result().complete(userService.getObject().insertUser(pending.user()));
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+}
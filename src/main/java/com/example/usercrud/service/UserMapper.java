@@ -0,0 +1,21 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.entity.User;
+
+// Entity-to-DTO mapping, kept free of UserService's collaborators so it can be measured alone
+final class UserMapper {
+
+    private UserMapper() {
+    }
+
+    static UserDTO toDTO(User user) {
+        return new UserDTO(
+                user.getId(),
+                user.getName(),
+                user.getEmail(),
+                user.getPhone(),
+                user.getVersion()
+        );
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.exception.BadRequestException;
+import com.example.usercrud.exception.DuplicateEmailException;
+import com.example.usercrud.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every public UserService method as user.operation, tagged with the method name and
+ * an outcome. Runs outside the transaction interceptor so commit time is included.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class UserOperationMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public UserOperationMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.example.usercrud.service.UserService.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "ok";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("user.operation")
+                    .description("Latency of UserService operations")
+                    .tag("operation", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private String outcome(Throwable e) {
+        if (e instanceof ResourceNotFoundException) {
+            return "not_found";
+        }
+        if (e instanceof DuplicateEmailException) {
+            return "duplicate";
+        }
+        if (e instanceof BadRequestException) {
+            return "invalid";
+        }
+        return "error";
+    }
+}
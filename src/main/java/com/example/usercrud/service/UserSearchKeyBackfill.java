@@ -0,0 +1,78 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.entity.User;
+import com.example.usercrud.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fills name_normalized and email_normalized on rows written before those columns existed.
+ * Until then such rows are missing from prefix search and from lookups by email, and the
+ * email directory does not count them. The keys come from User.normalize, as on every write,
+ * so they match the keys later writes set. Each chunk is one transaction, so an interrupted
+ * run resumes where it stopped.
+ *
+ * <p>The row's version is left alone: the keys are derived from columns the row already has,
+ * so neither caches nor the change feed have anything to pick up.
+ */
+@Component
+public class UserSearchKeyBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearchKeyBackfill.class);
+
+    private final UserRepository userRepository;
+    private final UserShards shards;
+    private final int chunkSize;
+
+    @Autowired
+    public UserSearchKeyBackfill(UserRepository userRepository, UserShards shards,
+                                 @Value("${app.search.backfill-chunk-size:500}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.shards = shards;
+        this.chunkSize = chunkSize;
+    }
+
+    // On a thread of its own, like UserChangeBackfill, so a large table does not delay startup
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread.ofVirtual().name("user-search-key-backfill").start(() -> {
+            try {
+                backfill();
+            } catch (RuntimeException e) {
+                log.warn("Backfilling user search keys stopped; it resumes on the next start", e);
+            }
+        });
+    }
+
+    // Rows keyed, on every shard
+    public long backfill() {
+        long total = 0;
+        for (int shard = 0; shard < shards.count(); shard++) {
+            int chunk;
+            do {
+                chunk = shards.update(shard, this::backfillChunk);
+                total += chunk;
+            } while (chunk == chunkSize);
+        }
+        if (total > 0) {
+            log.info("Filled search keys on {} users written before they existed", total);
+        }
+        return total;
+    }
+
+    private int backfillChunk() {
+        List<UserRepository.MissingSearchKeys> rows = userRepository.findMissingSearchKeys(Limit.of(chunkSize));
+        for (UserRepository.MissingSearchKeys row : rows) {
+            userRepository.fillSearchKeys(row.getId(), User.normalize(row.getName()), User.normalize(row.getEmail()));
+        }
+        return rows.size();
+    }
+}
@@ -1,87 +1,676 @@
 package com.example.usercrud.service;
 
+import com.example.usercrud.cache.EmailBloomFilter;
+import com.example.usercrud.cache.UserCache;
+import com.example.usercrud.cache.UserInvalidation;
+import com.example.usercrud.cache.UserPrefixIndex;
+import com.example.usercrud.dto.BatchItemResultDTO;
+import com.example.usercrud.dto.BatchResultDTO;
 import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.dto.UserPageDTO;
 import com.example.usercrud.entity.User;
+import com.example.usercrud.exception.BadRequestException;
 import com.example.usercrud.exception.DuplicateEmailException;
+import com.example.usercrud.exception.PreconditionFailedException;
 import com.example.usercrud.exception.ResourceNotFoundException;
+import com.example.usercrud.exception.ValidationFailedException;
+import com.example.usercrud.repository.UserEmailDirectory;
 import com.example.usercrud.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class UserService {
 
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_BATCH_SIZE = 5000;
+    public static final int MAX_SEARCH_PREFIX = 100;
+
+    // Keeps IN lists well below driver and optimizer limits
+    private static final int EMAIL_LOOKUP_CHUNK = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(UserService.class);
+
     private final UserRepository userRepository;
+    private final Validator validator;
+    private final UserCache userCache;
+    private final EmailBloomFilter emailFilter;
+    private final UserPrefixIndex prefixIndex;
+    private final UserCreateQueue createQueue;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserShards shards;
+    private final ObjectProvider<UserEmailDirectory> emailDirectory;
+    private final UserChangeLog changeLog;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, Validator validator, UserCache userCache,
+                       EmailBloomFilter emailFilter, UserPrefixIndex prefixIndex, UserCreateQueue createQueue,
+                       ApplicationEventPublisher eventPublisher, UserShards shards,
+                       ObjectProvider<UserEmailDirectory> emailDirectory, UserChangeLog changeLog) {
         this.userRepository = userRepository;
+        this.validator = validator;
+        this.userCache = userCache;
+        this.emailFilter = emailFilter;
+        this.prefixIndex = prefixIndex;
+        this.createQueue = createQueue;
+        this.eventPublisher = eventPublisher;
+        this.shards = shards;
+        this.emailDirectory = emailDirectory;
+        this.changeLog = changeLog;
     }
 
+    // Outside a transaction, so a caller parked on the group commit holds no connection;
+    // the direct insert gets a write transaction of its own
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UserDTO createUser(UserDTO userDTO) {
-        if (userRepository.existsByEmail(userDTO.getEmail())) {
-            throw new DuplicateEmailException("Email already exists: " + userDTO.getEmail());
+        if (createQueue.isEnabled()) {
+            return createQueue.submit(userDTO);
         }
-        
+        return shards.update(shards.shardFor(userDTO.getEmail()), () -> insertUser(userDTO));
+    }
+
+    // No existence pre-check: the insert itself hits uk_users_email on a duplicate, and with
+    // sharding the directory claim does the same across shards
+    public UserDTO insertUser(UserDTO userDTO) {
         User user = new User();
         user.setName(userDTO.getName());
         user.setEmail(userDTO.getEmail());
         user.setPhone(userDTO.getPhone());
         
-        User savedUser = userRepository.save(user);
-        return convertToDTO(savedUser);
+        int shard = shards.shardFor(user.getEmail());
+        User savedUser = withEmailClaim(shard, user.getEmail(), null, () -> shards.on(shard, () -> saveAndFlush(user)));
+        changeLog.recordUser(savedUser.getId());
+        emailFilter.add(savedUser.getEmail());
+        UserDTO createdUser = convertToDTO(savedUser);
+        // Indexed before the invalidation goes out, so the index need not read the row back
+        prefixIndex.put(createdUser);
+        // Nothing cached under the id yet; other instances drop what they map the email to
+        userCache.evict(createdUser.getId(), createdUser.getVersion(), createdUser.getEmail());
+        eventPublisher.publishEvent(new UsersChangedEvent());
+        return createdUser;
+    }
+
+    // Outside a transaction: each share of the batch commits in its own, so a row that loses a
+    // race can be retried without the rest of the batch
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchResultDTO createUsers(List<UserDTO> userDTOs) {
+        if (userDTOs == null || userDTOs.isEmpty()) {
+            throw new BadRequestException("Batch must contain at least one user");
+        }
+        if (userDTOs.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("Batch must not exceed " + MAX_BATCH_SIZE + " users");
+        }
+
+        BatchItemResultDTO[] results = new BatchItemResultDTO[userDTOs.size()];
+        Set<String> batchEmails = new HashSet<>();
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < userDTOs.size(); i++) {
+            UserDTO userDTO = userDTOs.get(i);
+            String violations = validate(userDTO);
+            if (violations != null) {
+                results[i] = new BatchItemResultDTO(i, BatchItemResultDTO.Status.INVALID, userDTO, violations);
+            } else if (!batchEmails.add(normalizeEmail(userDTO.getEmail()))) {
+                results[i] = new BatchItemResultDTO(i, BatchItemResultDTO.Status.CONFLICT, userDTO,
+                        "Email appears more than once in batch: " + userDTO.getEmail());
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        // With sharding the directory claims below are the existence check
+        Set<String> existingEmails = shards.isEnabled() ? Set.of() : findExistingEmails(batchEmails);
+        List<Integer> newIndexes = new ArrayList<>();
+        Map<Integer, UserEmailDirectory.Claim> claims = new HashMap<>();
+        for (int i : candidates) {
+            UserDTO userDTO = userDTOs.get(i);
+            boolean available = !existingEmails.contains(normalizeEmail(userDTO.getEmail()));
+            if (available && shards.isEnabled()) {
+                Optional<UserEmailDirectory.Claim> claim = emailDirectory.getObject()
+                        .claim(userDTO.getEmail(), shards.shardFor(userDTO.getEmail()));
+                claim.ifPresent(held -> claims.put(i, held));
+                available = claim.isPresent();
+            }
+            if (available) {
+                newIndexes.add(i);
+            } else {
+                results[i] = new BatchItemResultDTO(i, BatchItemResultDTO.Status.CONFLICT, userDTO,
+                        "Email already exists: " + userDTO.getEmail());
+            }
+        }
+
+        saveBatch(userDTOs, newIndexes, results);
+        // Rows that did not go in give their emails back; a claim left behind is taken over
+        // once claim-timeout has passed
+        claims.forEach((i, claim) -> {
+            if (results[i].getStatus() != BatchItemResultDTO.Status.CREATED) {
+                try {
+                    emailDirectory.getObject().release(claim);
+                } catch (RuntimeException e) {
+                    log.warn("Could not release the claim on {}", claim.email(), e);
+                }
+            }
+        });
+        boolean created = false;
+        for (int i : newIndexes) {
+            if (results[i].getStatus() == BatchItemResultDTO.Status.CREATED) {
+                UserDTO createdUser = results[i].getUser();
+                emailFilter.add(createdUser.getEmail());
+                prefixIndex.put(createdUser);
+                userCache.evict(createdUser.getId(), createdUser.getVersion(), createdUser.getEmail());
+                created = true;
+            }
+        }
+        if (created) {
+            eventPublisher.publishEvent(new UsersChangedEvent());
+        }
+        return new BatchResultDTO(List.of(results));
     }
 
     @Transactional(readOnly = true)
-    public List<UserDTO> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public UserPageDTO getAllUsers(String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        long afterId = decodeCursor(cursor);
+
+        // Fetch one extra row to know whether another page exists; with sharding every shard
+        // returns that many and the merge keeps the lowest ids
+        List<UserDTO> users = UserShards.merge(
+                shards.queryEach(shard -> userRepository.findDtoPageAfter(afterId, Limit.of(pageSize + 1))),
+                Comparator.comparing(UserDTO::getId), pageSize + 1);
+        List<UserDTO> page = users.size() > pageSize ? users.subList(0, pageSize) : users;
+
+        String nextCursor = users.size() > pageSize ? encodeCursor(page.get(page.size() - 1).getId()) : null;
+        return new UserPageDTO(page, nextCursor);
+    }
+
+    // Case-insensitive prefix match on one field, paged by (normalized key, id)
+    @Transactional(readOnly = true)
+    public UserPageDTO searchUsers(String query, String by, String cursor, int size) {
+        String prefix = User.normalize(query);
+        if (prefix == null || prefix.isEmpty()) {
+            throw new BadRequestException("Search query must not be blank");
+        }
+        if (prefix.length() > MAX_SEARCH_PREFIX) {
+            throw new BadRequestException("Search query must not exceed " + MAX_SEARCH_PREFIX + " characters");
+        }
+        UserPrefixIndex.Field field = parseSearchField(by);
+        Function<UserDTO, String> keyOf = field == UserPrefixIndex.Field.NAME
+                ? user -> User.normalize(user.getName())
+                : user -> User.normalize(user.getEmail());
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        UserPrefixIndex.Entry after = decodeSearchCursor(cursor);
+
+        if (prefixIndex.isReady()) {
+            List<UserPrefixIndex.Entry> entries = prefixIndex.search(field, prefix, after.key(), after.id(), pageSize + 1);
+            List<UserPrefixIndex.Entry> pageEntries = entries.subList(0, Math.min(entries.size(), pageSize));
+            Map<Long, UserDTO> rows = userRepository.findDtosByIdIn(pageEntries.stream().map(UserPrefixIndex.Entry::id).toList())
+                    .stream()
+                    .collect(Collectors.toMap(UserDTO::getId, Function.identity()));
+            // Drop rows deleted or renamed since the index saw them
+            List<UserDTO> page = pageEntries.stream()
+                    .map(entry -> rows.get(entry.id()))
+                    .filter(user -> user != null && keyOf.apply(user).startsWith(prefix))
+                    .collect(Collectors.toList());
+            String nextCursor = entries.size() > pageSize ? encodeSearchCursor(pageEntries.get(pageSize - 1)) : null;
+            return new UserPageDTO(page, nextCursor);
+        }
+
+        String pattern = escapeLike(prefix) + "%";
+        Limit limit = Limit.of(pageSize + 1);
+        List<UserDTO> users = UserShards.merge(shards.queryEach(shard -> field == UserPrefixIndex.Field.NAME
+                        ? userRepository.searchByNamePrefix(pattern, after.key(), after.id(), limit)
+                        : userRepository.searchByEmailPrefix(pattern, after.key(), after.id(), limit)),
+                Comparator.comparing(keyOf).thenComparing(UserDTO::getId), pageSize + 1);
+        List<UserDTO> page = users.size() > pageSize ? users.subList(0, pageSize) : users;
+        String nextCursor = null;
+        if (users.size() > pageSize) {
+            UserDTO last = page.get(page.size() - 1);
+            nextCursor = encodeSearchCursor(new UserPrefixIndex.Entry(keyOf.apply(last), last.getId()));
+        }
+        return new UserPageDTO(page, nextCursor);
     }
 
+    // With sharding, shards are exported one after another, each in id order
     @Transactional(readOnly = true)
+    public void exportUsers(Consumer<UserDTO> consumer) {
+        // DTO rows never enter the persistence context, so heap stays flat for any table size
+        shards.readInTurn(shard -> {
+            try (Stream<UserDTO> users = userRepository.streamAllDtosOrderedById()) {
+                users.forEach(consumer);
+            }
+        });
+    }
+
+    // SUPPORTS: a cache hit should not open a transaction or borrow a pooled connection
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public UserDTO getUserById(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
-        return convertToDTO(user);
+        return shards.on(shards.shardOf(id), () -> userCache.get(id, this::loadUser));
+    }
+
+    // With sharding the directory names the shard, so only that one is asked
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public UserDTO getUserByEmail(String email) {
+        if (email == null || email.isBlank()) {
+            throw new BadRequestException("Email must not be blank");
+        }
+        return userCache.getByEmail(email, this::loadUserByEmail);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Long getUserVersion(Long id) {
+        UserDTO cached = userCache.getIfPresent(id);
+        if (cached != null) {
+            return cached.getVersion();
+        }
+        return shards.on(shards.shardOf(id), () -> userRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id)));
     }
 
     public UserDTO updateUser(Long id, UserDTO userDTO) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
-        
-        // Check if email is being changed and if the new email already exists
-        if (!user.getEmail().equals(userDTO.getEmail()) && 
-            userRepository.existsByEmail(userDTO.getEmail())) {
-            throw new DuplicateEmailException("Email already exists: " + userDTO.getEmail());
+        return updateUser(id, userDTO, null);
+    }
+
+    // A single UPDATE; the row is only read again when it matched nothing, or up front when
+    // sharding needs the current email to move its directory claim
+    public UserDTO updateUser(Long id, UserDTO userDTO, Long expectedVersion) {
+        int shard = shards.shardOf(id);
+        return shards.on(shard, () -> {
+            String currentEmail = shards.isEnabled() ? loadUser(id).getEmail() : null;
+            withEmailClaim(shard, userDTO.getEmail(), currentEmail, () -> {
+                int updated;
+                try {
+                    updated = userRepository.updateById(id, userDTO.getName(), userDTO.getEmail(), userDTO.getPhone(),
+                            User.normalize(userDTO.getName()), User.normalize(userDTO.getEmail()), LocalDateTime.now(ZoneOffset.UTC),
+                            expectedVersion);
+                } catch (DataIntegrityViolationException e) {
+                    throw translateViolation(e, userDTO.getEmail());
+                }
+
+                if (updated == 0) {
+                    Long currentVersion = userRepository.findVersionById(id)
+                            .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+                    throw new PreconditionFailedException("User " + id + " has version " + currentVersion
+                            + ", not the expected " + expectedVersion);
+                }
+                changeLog.recordUser(id);
+                return updated;
+            });
+
+            emailFilter.add(userDTO.getEmail());
+            // Without If-Match the new version is read back by primary key in the same
+            // transaction, so an unconditional PUT still returns its ETag
+            Long newVersion = expectedVersion != null
+                    ? expectedVersion + 1
+                    : userRepository.findVersionById(id)
+                            .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+            userCache.evict(id, newVersion, userDTO.getEmail());
+            UserDTO updatedUser = new UserDTO(id, userDTO.getName(), userDTO.getEmail(), userDTO.getPhone(), newVersion);
+            prefixIndex.put(updatedUser);
+            eventPublisher.publishEvent(new UsersChangedEvent());
+            return updatedUser;
+        });
+    }
+
+    // JSON Merge Patch (RFC 7396): absent fields are kept, null clears, anything else replaces
+    public UserDTO patchUser(Long id, JsonNode patch, Long expectedVersion) {
+        if (patch == null || !patch.isObject()) {
+            throw new BadRequestException("Merge patch must be a JSON object");
         }
-        
-        user.setName(userDTO.getName());
-        user.setEmail(userDTO.getEmail());
-        user.setPhone(userDTO.getPhone());
-        
-        User updatedUser = userRepository.save(user);
-        return convertToDTO(updatedUser);
+        int shard = shards.shardOf(id);
+        return shards.on(shard, () -> {
+            User user = userRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+            if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+                throw new PreconditionFailedException("User " + id + " has version " + user.getVersion()
+                        + ", not the expected " + expectedVersion);
+            }
+
+            UserDTO patched = convertToDTO(user);
+            Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                switch (field.getKey()) {
+                    case "name" -> patched.setName(patchText(field));
+                    case "email" -> patched.setEmail(patchText(field));
+                    case "phone" -> patched.setPhone(patchText(field));
+                    default -> throw new BadRequestException("Field cannot be patched: " + field.getKey());
+                }
+            }
+            // Same errors map as a PUT or POST body that fails @Valid
+            Set<ConstraintViolation<UserDTO>> violations = validator.validate(patched);
+            if (!violations.isEmpty()) {
+                throw new ValidationFailedException(violations.stream().collect(Collectors.toMap(
+                        violation -> violation.getPropertyPath().toString(), ConstraintViolation::getMessage,
+                        (first, second) -> first, TreeMap::new)));
+            }
+
+            // Nothing differs: no UPDATE, no version bump, cached copy stays valid
+            if (Objects.equals(patched.getName(), user.getName())
+                    && Objects.equals(patched.getEmail(), user.getEmail())
+                    && Objects.equals(patched.getPhone(), user.getPhone())) {
+                return patched;
+            }
+
+            String previousEmail = user.getEmail();
+            user.setName(patched.getName());
+            user.setEmail(patched.getEmail());
+            user.setPhone(patched.getPhone());
+            User updatedUser = withEmailClaim(shard, user.getEmail(), previousEmail, () -> saveAndFlush(user));
+            changeLog.recordUser(id);
+            emailFilter.add(updatedUser.getEmail());
+            userCache.evict(id, updatedUser.getVersion(), updatedUser.getEmail());
+            UserDTO patchedUser = convertToDTO(updatedUser);
+            prefixIndex.put(patchedUser);
+            eventPublisher.publishEvent(new UsersChangedEvent());
+            return patchedUser;
+        });
     }
 
+    // The tombstone is copied from the row first, so no row means nothing to delete; with
+    // sharding the email's directory claim is read too, and released once the delete commits
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new ResourceNotFoundException("User not found with id: " + id);
+        int shard = shards.shardOf(id);
+        shards.on(shard, () -> {
+            Optional<UserEmailDirectory.Claim> claim = shards.isEnabled()
+                    ? heldClaim(loadUser(id).getEmail(), shard) : Optional.empty();
+            if (userRepository.insertTombstones(List.of(id), LocalDateTime.now(ZoneOffset.UTC)) == 0
+                    || userRepository.deleteUserById(id) == 0) {
+                throw new ResourceNotFoundException("User not found with id: " + id);
+            }
+            changeLog.recordTombstones(List.of(id));
+            claim.ifPresent(held -> afterCompletion(committed -> {
+                if (committed) {
+                    emailDirectory.getObject().release(held);
+                }
+            }));
+            userCache.evict(id, UserInvalidation.DELETED, null);
+            prefixIndex.remove(id);
+            eventPublisher.publishEvent(new UsersChangedEvent());
+        });
+    }
+
+    // The email is claimed before the shard write and given back if the write fails; a
+    // replaced email is only released once the write has committed
+    private <T> T withEmailClaim(int shard, String email, String replacedEmail, Supplier<T> write) {
+        if (!shards.isEnabled() || (replacedEmail != null && User.normalize(replacedEmail).equals(User.normalize(email)))) {
+            return write.get();
+        }
+        UserEmailDirectory directory = emailDirectory.getObject();
+        UserEmailDirectory.Claim claim = directory.claim(email, shard)
+                .orElseThrow(() -> new DuplicateEmailException("Email already exists: " + email));
+        // Read while the row still holds the old email; once it commits the claim could be taken over
+        Optional<UserEmailDirectory.Claim> replaced = replacedEmail != null
+                ? heldClaim(replacedEmail, shard) : Optional.empty();
+        T result;
+        try {
+            result = write.get();
+        } catch (RuntimeException e) {
+            directory.release(claim);
+            throw e;
+        }
+        afterCompletion(committed -> {
+            if (!committed) {
+                directory.release(claim);
+            } else {
+                replaced.ifPresent(directory::release);
+            }
+        });
+        return result;
+    }
+
+    // The directory's claim on an email held by a row of this shard, if it is this shard's
+    private Optional<UserEmailDirectory.Claim> heldClaim(String email, int shard) {
+        return emailDirectory.getObject().find(email).filter(claim -> claim.shard() == shard);
+    }
+
+    // Ids come from the pooled sequence, so the inserts go out as JDBC batches on flush. Each
+    // shard's share commits on its own, so a share that fails cannot take back what was already
+    // committed; its rows are reported as FAILED and the rest stand. Never throws, so a caller
+    // cannot mistake rows stored before a failure for rows that were not
+    private void saveBatch(List<UserDTO> userDTOs, List<Integer> indexes, BatchItemResultDTO[] results) {
+        Map<Integer, List<Integer>> byShard = shards.isEnabled()
+                ? indexes.stream().collect(Collectors.groupingBy(
+                        i -> shards.shardFor(userDTOs.get(i).getEmail()), TreeMap::new, Collectors.toList()))
+                : Map.of(0, indexes);
+        byShard.forEach((shard, share) -> {
+            try {
+                insertShare(shard, userDTOs, share, results);
+            } catch (RuntimeException e) {
+                log.warn("Batch share of {} users failed on shard {}", share.size(), shard, e);
+                // Rows already inserted one at a time before the failure keep their result
+                for (int i : share) {
+                    if (results[i] == null) {
+                        results[i] = new BatchItemResultDTO(i, BatchItemResultDTO.Status.FAILED, userDTOs.get(i),
+                                "Not stored; the user can be submitted again");
+                    }
+                }
+            }
+        });
+    }
+
+    // The share goes in as one batch. A row that raced another insert past the existence check
+    // rolls the batch back on uk_users_email; the rows are then inserted one per transaction,
+    // so only the rows that lost the race are reported as conflicts
+    private void insertShare(int shard, List<UserDTO> userDTOs, List<Integer> indexes, BatchItemResultDTO[] results) {
+        List<User> users = indexes.stream().map(i -> newUser(userDTOs.get(i))).toList();
+        try {
+            shards.update(shard, () -> {
+                userRepository.saveAll(users);
+                userRepository.flush();
+                changeLog.recordUsers(users.stream().map(User::getId).toList());
+                return users.size();
+            });
+            // Persisted in place, so the ids are already set
+            for (int j = 0; j < users.size(); j++) {
+                int i = indexes.get(j);
+                results[i] = new BatchItemResultDTO(i, BatchItemResultDTO.Status.CREATED, convertToDTO(users.get(j)), null);
+            }
+            return;
+        } catch (DataIntegrityViolationException e) {
+            if (!(translateViolation(e, null) instanceof DuplicateEmailException)) {
+                throw e;
+            }
+        }
+        for (int i : indexes) {
+            UserDTO userDTO = userDTOs.get(i);
+            try {
+                User savedUser = shards.update(shard, () -> {
+                    User saved = saveAndFlush(newUser(userDTO));
+                    changeLog.recordUser(saved.getId());
+                    return saved;
+                });
+                results[i] = new BatchItemResultDTO(i, BatchItemResultDTO.Status.CREATED, convertToDTO(savedUser), null);
+            } catch (DuplicateEmailException e) {
+                results[i] = new BatchItemResultDTO(i, BatchItemResultDTO.Status.CONFLICT, userDTO, e.getMessage());
+            }
+        }
+    }
+
+    // A fresh entity per attempt, since one from a rolled-back batch already carries an id
+    private static User newUser(UserDTO userDTO) {
+        return new User(userDTO.getName(), userDTO.getEmail(), userDTO.getPhone());
+    }
+
+    private static void afterCompletion(Consumer<Boolean> outcome) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            outcome.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                outcome.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private User saveAndFlush(User user) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw translateViolation(e, user.getEmail());
+        }
+    }
+
+    // Only a uk_users_email violation means a duplicate; anything else is left to the handler
+    private RuntimeException translateViolation(DataIntegrityViolationException e, String email) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String constraint = cause instanceof ConstraintViolationException violation
+                    ? violation.getConstraintName()
+                    : cause.getMessage();
+            if (constraint != null && constraint.toLowerCase(Locale.ROOT).contains(User.EMAIL_CONSTRAINT)) {
+                return new DuplicateEmailException("Email already exists: " + email);
+            }
+        }
+        return e;
+    }
+
+    private UserDTO loadUser(Long id) {
+        return userRepository.findDtoById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+    }
+
+    private UserDTO loadUserByEmail(String email) {
+        int shard = shards.isEnabled()
+                ? emailDirectory.getObject().find(email)
+                        .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + email))
+                        .shard()
+                : 0;
+        return shards.on(shard, () -> userRepository.findDtoByEmailNormalized(User.normalize(email))
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + email)));
+    }
+
+    private String patchText(Map.Entry<String, JsonNode> field) {
+        JsonNode value = field.getValue();
+        if (value.isNull()) {
+            return null;
+        }
+        if (!value.isTextual()) {
+            throw new BadRequestException(field.getKey() + ": must be a string or null");
+        }
+        return value.asText();
+    }
+
+    private String validate(UserDTO userDTO) {
+        if (userDTO == null) {
+            return "User must not be null";
+        }
+        Set<ConstraintViolation<UserDTO>> violations = validator.validate(userDTO);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    // Only emails the filter cannot rule out are looked up
+    private Set<String> findExistingEmails(Set<String> emails) {
+        List<String> pending = emails.stream()
+                .filter(emailFilter::mightContain)
+                .collect(Collectors.toList());
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < pending.size(); from += EMAIL_LOOKUP_CHUNK) {
+            List<String> chunk = pending.subList(from, Math.min(from + EMAIL_LOOKUP_CHUNK, pending.size()));
+            userRepository.findExistingEmails(chunk).forEach(email -> existing.add(normalizeEmail(email)));
+        }
+        for (int k = existing.size(); k < pending.size(); k++) {
+            emailFilter.recordFalsePositive();
+        }
+        return existing;
+    }
+
+    // MySQL compares emails case-insensitively, so duplicates are detected the same way
+    private String normalizeEmail(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private UserPrefixIndex.Field parseSearchField(String by) {
+        try {
+            return UserPrefixIndex.Field.valueOf(by.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new BadRequestException("Search field must be name or email: " + by);
+        }
+    }
+
+    private String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    // Search cursors carry the last key as well as the id: "<id>:<key>"
+    private String encodeSearchCursor(UserPrefixIndex.Entry entry) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((entry.id() + ":" + entry.key()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private UserPrefixIndex.Entry decodeSearchCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new UserPrefixIndex.Entry("", 0L);
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            return new UserPrefixIndex.Entry(decoded.substring(separator + 1), Long.parseLong(decoded.substring(0, separator)));
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
         }
-        userRepository.deleteById(id);
     }
 
     private UserDTO convertToDTO(User user) {
-        return new UserDTO(
-                user.getId(),
-                user.getName(),
-                user.getEmail(),
-                user.getPhone()
-        );
+        return UserMapper.toDTO(user);
     }
 }
@@ -0,0 +1,187 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.config.ShardContext;
+import com.example.usercrud.entity.ShardedSequenceGenerator;
+import com.example.usercrud.entity.User;
+import com.example.usercrud.exception.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Where users live when app.sharding.enabled spreads them over several databases: a new
+ * user goes to the shard its email hashes to, and its id names that shard from then on.
+ * Work for one shard runs with the shard bound on the calling thread; work for every shard
+ * fans out on virtual threads, one transaction per shard.
+ *
+ * <p>With sharding disabled there is a single shard 0, nothing is bound, and every method
+ * but {@link #update} runs its work inline in the caller's transaction.
+ */
+@Component
+public class UserShards {
+
+    private final boolean enabled;
+    private final int count;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+
+    @Autowired
+    public UserShards(@Value("${app.sharding.enabled:false}") boolean enabled,
+                      @Value("${app.sharding.urls:}") List<String> urls,
+                      PlatformTransactionManager transactionManager) {
+        this.enabled = enabled;
+        this.count = enabled ? urls.size() : 1;
+        if (enabled) {
+            this.readTransaction = new TransactionTemplate(transactionManager);
+            this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            this.readTransaction.setReadOnly(true);
+        } else {
+            this.readTransaction = null;
+        }
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    // String.hashCode is fixed by the language spec, so placement survives restarts and upgrades
+    public int shardFor(String email) {
+        return enabled ? Math.floorMod(User.normalize(email).hashCode(), count) : 0;
+    }
+
+    public int shardOf(Long id) {
+        if (!enabled) {
+            return 0;
+        }
+        int shard = ShardedSequenceGenerator.shardOf(id);
+        if (shard >= count) {
+            throw new ResourceNotFoundException("User not found with id: " + id);
+        }
+        return shard;
+    }
+
+    // Must be entered before the caller's transaction touches the database, or its connection
+    // is already taken from whichever shard was current then
+    public <T> T on(int shard, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        Integer bound = ShardContext.current();
+        if (bound != null) {
+            if (bound != shard) {
+                throw new IllegalStateException("Thread is bound to shard " + bound + ", not " + shard);
+            }
+            return work.get();
+        }
+        ShardContext.bind(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardContext.clear();
+        }
+    }
+
+    public void on(int shard, Runnable work) {
+        on(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    // Work on one shard in a transaction of its own, committed or rolled back before this
+    // returns, so a failure costs only this work and leaves the caller free to retry it
+    public <T> T update(int shard, Supplier<T> work) {
+        return on(shard, () -> writeTransaction.execute(status -> work.get()));
+    }
+
+    // Results in shard order
+    public <T> List<T> queryEach(IntFunction<T> work) {
+        return fanOut(readTransaction, work);
+    }
+
+    public <T> List<T> updateEach(IntFunction<T> work) {
+        return fanOut(writeTransaction, work);
+    }
+
+    // One shard after another on the calling thread, for work that must stay on it, like a streamed response
+    public void readInTurn(IntConsumer work) {
+        if (!enabled) {
+            work.accept(0);
+            return;
+        }
+        for (int shard = 0; shard < count; shard++) {
+            int current = shard;
+            on(current, () -> readTransaction.executeWithoutResult(status -> work.accept(current)));
+        }
+    }
+
+    // k-way merge of runs that are each sorted by order, stopping after limit elements
+    public static <T> List<T> merge(List<? extends List<T>> runs, Comparator<? super T> order, int limit) {
+        record Head<T>(T value, Iterator<T> rest) {
+        }
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, runs.size()),
+                (a, b) -> order.compare(a.value(), b.value()));
+        for (List<T> run : runs) {
+            Iterator<T> iterator = run.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head<>(iterator.next(), iterator));
+            }
+        }
+        List<T> merged = new ArrayList<>(Math.min(limit, runs.stream().mapToInt(List::size).sum()));
+        while (merged.size() < limit && !heads.isEmpty()) {
+            Head<T> head = heads.poll();
+            merged.add(head.value());
+            if (head.rest().hasNext()) {
+                heads.add(new Head<>(head.rest().next(), head.rest()));
+            }
+        }
+        return merged;
+    }
+
+    private <T> List<T> fanOut(TransactionTemplate transaction, IntFunction<T> work) {
+        if (!enabled) {
+            return Collections.singletonList(work.apply(0));
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<T>> results = new ArrayList<>(count);
+            for (int shard = 0; shard < count; shard++) {
+                int current = shard;
+                results.add(CompletableFuture.supplyAsync(
+                        () -> on(current, () -> transaction.execute(status -> work.apply(current))), executor));
+            }
+            List<T> values = new ArrayList<>(count);
+            for (CompletableFuture<T> result : results) {
+                values.add(result.join());
+            }
+            return values;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.usercrud.service;
+
+// Published by every user write; listeners hear it once the writing transaction commits
+public record UsersChangedEvent() {
+}
@@ -0,0 +1,6 @@
+-- Global email directory used with app.sharding.enabled; lives in spring.datasource, outside the shards
+create table if not exists user_email_directory (
+    email varchar(100) primary key,
+    shard int not null,
+    claimed_at bigint not null
+);
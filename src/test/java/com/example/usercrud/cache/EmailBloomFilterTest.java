@@ -0,0 +1,91 @@
+package com.example.usercrud.cache;
+
+import com.example.usercrud.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmailBloomFilterTest {
+
+    @Test
+    void testMightContain_EverythingIsMaybeUntilLoaded() {
+        // Arrange
+        EmailBloomFilter filter = new EmailBloomFilter(null, new LocalUserInvalidationBus(), true, 1000, 0.01);
+
+        // Act & Assert
+        assertThat(filter.isReady()).isFalse();
+        assertThat(filter.mightContain("anyone@example.com")).isTrue();
+    }
+
+    @Test
+    void testLoad_NoFalseNegativesAndBoundedFalsePositives() {
+        // Arrange
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.streamAllEmails()).thenReturn(
+                IntStream.range(0, 1000).mapToObj(i -> "user" + i + "@example.com"));
+        EmailBloomFilter filter = new EmailBloomFilter(userRepository, new LocalUserInvalidationBus(), true, 1000, 0.01);
+
+        // Act
+        filter.load();
+        filter.add("New.User@Example.com");
+
+        // Assert
+        assertThat(IntStream.range(0, 1000).allMatch(i -> filter.mightContain("user" + i + "@example.com"))).isTrue();
+        assertThat(filter.mightContain("new.user@example.com")).isTrue();
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> filter.mightContain("absent" + i + "@example.org"))
+                .count();
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    void testApply_LearnsEmailsWrittenElsewhereAndDistrustsAfterMissedWrites() {
+        // Arrange
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.streamAllEmails()).thenReturn(Stream.of("john@example.com"));
+        LocalUserInvalidationBus bus = new LocalUserInvalidationBus();
+        EmailBloomFilter filter = new EmailBloomFilter(userRepository, bus, true, 1000, 0.01);
+        filter.load();
+
+        // Act
+        bus.publish(new UserInvalidation(2L, 0L, "jane@example.com", System.currentTimeMillis()));
+
+        // Assert
+        assertThat(filter.mightContain("jane@example.com")).isTrue();
+        assertThat(filter.mightContain("absent@example.org")).isFalse();
+
+        // Act
+        bus.publish(UserInvalidation.all());
+
+        // Assert
+        assertThat(filter.isReady()).isFalse();
+        assertThat(filter.mightContain("absent@example.org")).isTrue();
+    }
+
+    @Test
+    void testBindTo_ReportsFootprintAndFalsePositiveRate() {
+        // Arrange
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.streamAllEmails()).thenReturn(Stream.of("john@example.com"));
+        EmailBloomFilter filter = new EmailBloomFilter(userRepository, new LocalUserInvalidationBus(), true, 1000, 0.01);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        filter.bindTo(registry);
+
+        // Act
+        filter.load();
+        filter.mightContain("john@example.com");
+        filter.recordFalsePositive();
+
+        // Assert
+        assertThat(registry.get("user.email.filter.size").gauge().value()).isEqualTo(filter.sizeInBytes());
+        assertThat(registry.get("user.email.filter.false.positive.rate").gauge().value()).isBetween(0.0, 0.01);
+        assertThat(registry.get("user.email.filter.checks").tag("result", "maybe").functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("user.email.filter.false.positives").functionCounter().count()).isEqualTo(1.0);
+    }
+}
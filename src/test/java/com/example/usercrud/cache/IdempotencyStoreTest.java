@@ -0,0 +1,176 @@
+package com.example.usercrud.cache;
+
+import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.exception.BadRequestException;
+import com.example.usercrud.exception.ServiceOverloadedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+
+    private static final String CLIENT = "addr:10.0.0.1";
+
+    private IdempotencyStore store;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore(new ObjectMapper(), 10, Duration.ofMinutes(5), Duration.ofSeconds(5));
+        registry = new SimpleMeterRegistry();
+        store.bindTo(registry);
+    }
+
+    @Test
+    void testExecute_ConcurrentDuplicatesCoalesceOntoTheFirst() throws Exception {
+        // Arrange
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        UserDTO body = new UserDTO(null, "John Doe", "john@example.com", null);
+
+        // Act
+        List<CompletableFuture<ResponseEntity<UserDTO>>> responses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            responses.add(CompletableFuture.supplyAsync(() -> store.execute(CLIENT, "key", "POST /api/users", body, () -> {
+                runs.incrementAndGet();
+                started.countDown();
+                await(release);
+                return ResponseEntity.status(HttpStatus.CREATED).body(new UserDTO(1L, "John Doe", "john@example.com", null));
+            }), executor));
+            started.await();
+            for (int i = 0; i < 3; i++) {
+                responses.add(CompletableFuture.supplyAsync(() -> store.execute(CLIENT, "key", "POST /api/users", body, () -> {
+                    runs.incrementAndGet();
+                    return ResponseEntity.status(HttpStatus.CREATED).body(new UserDTO(2L, "John Doe", "john@example.com", null));
+                }), executor));
+            }
+            release.countDown();
+        }
+
+        // Assert
+        assertThat(runs.get()).isEqualTo(1);
+        for (CompletableFuture<ResponseEntity<UserDTO>> response : responses) {
+            assertThat(response.join().getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            assertThat(response.join().getBody().getId()).isEqualTo(1L);
+        }
+        assertThat(registry.get("http.idempotency.requests").tag("result", "replayed").functionCounter().count())
+                .isEqualTo(3.0);
+    }
+
+    @Test
+    void testExecute_StillRunningAfterWaitIsServiceUnavailable() {
+        // Arrange
+        store = new IdempotencyStore(new ObjectMapper(), 10, Duration.ofMinutes(5), Duration.ofMillis(10));
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<Object>> first = CompletableFuture.supplyAsync(
+                () -> store.execute(CLIENT, "slow", "DELETE /api/users/1", null, () -> {
+                    await(release);
+                    return ResponseEntity.noContent().build();
+                }));
+
+        try {
+            // Act & Assert
+            assertThatThrownBy(() -> {
+                while (store.size() == 0) {
+                    Thread.onSpinWait();
+                }
+                store.execute(CLIENT, "slow", "DELETE /api/users/1", null, () -> ResponseEntity.noContent().build());
+            }).isInstanceOf(ServiceOverloadedException.class);
+        } finally {
+            release.countDown();
+            first.join();
+        }
+    }
+
+    @Test
+    void testExecute_SameKeyFromAnotherClientRunsAgain() {
+        // Arrange
+        AtomicInteger runs = new AtomicInteger();
+        store.execute(CLIENT, "shared", "DELETE /api/users/1", null, () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.noContent().build();
+        });
+
+        // Act
+        ResponseEntity<Object> response = store.execute("addr:10.0.0.2", "shared", "DELETE /api/users/1", null, () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.noContent().build();
+        });
+
+        // Assert
+        assertThat(runs.get()).isEqualTo(2);
+        assertThat(response.getHeaders().containsKey(IdempotencyStore.REPLAYED_HEADER)).isFalse();
+    }
+
+    @Test
+    void testExecute_InFlightKeySurvivesEviction() throws Exception {
+        // Arrange
+        store = new IdempotencyStore(new ObjectMapper(), 1, Duration.ofMinutes(5), Duration.ofMillis(10));
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<Object>> first = CompletableFuture.supplyAsync(
+                () -> store.execute(CLIENT, "slow", "DELETE /api/users/1", null, () -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return ResponseEntity.noContent().build();
+                }));
+        started.await();
+
+        try {
+            // Act
+            for (int i = 0; i < 20; i++) {
+                store.execute(CLIENT, "filler-" + i, "DELETE /api/users/" + (i + 2), null,
+                        () -> ResponseEntity.noContent().build());
+            }
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (store.size() > 2 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+
+            // Assert: the duplicate still finds the running request instead of running again
+            assertThatThrownBy(() -> store.execute(CLIENT, "slow", "DELETE /api/users/1", null, () -> {
+                runs.incrementAndGet();
+                return ResponseEntity.noContent().build();
+            })).isInstanceOf(ServiceOverloadedException.class);
+            assertThat(runs.get()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            first.join();
+        }
+    }
+
+    @Test
+    void testExecute_RejectsOverlongKey() {
+        // Act & Assert
+        assertThatThrownBy(() -> store.execute(CLIENT, "k".repeat(256), "POST /api/users", null,
+                () -> ResponseEntity.ok().build()))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
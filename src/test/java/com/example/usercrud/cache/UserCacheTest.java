@@ -0,0 +1,195 @@
+package com.example.usercrud.cache;
+
+import com.example.usercrud.dto.UserDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserCacheTest {
+
+    private LocalUserInvalidationBus bus;
+    private UserCache userCache;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        bus = new LocalUserInvalidationBus();
+        userCache = new UserCache(100, Duration.ofMinutes(5), bus);
+        registry = new SimpleMeterRegistry();
+        userCache.bindTo(registry);
+    }
+
+    @Test
+    void testGet_LoadsOnceAndRecordsHitsAndMisses() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        userCache.get(1L, id -> load(id, loads));
+        userCache.get(1L, id -> load(id, loads));
+
+        // Assert
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(registry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testEvict_InsideTransactionEvictsAgainOnCompletion() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userCache.evict(1L);
+            // A concurrent reader repopulates the entry before the writer commits
+            userCache.get(1L, id -> load(id, loads));
+
+            // Act
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(0));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        userCache.get(1L, id -> load(id, loads));
+
+        // Assert
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testEvict_ReachesOtherInstancesOnlyAfterCommit() {
+        // Arrange
+        UserCache otherInstance = new UserCache(100, Duration.ofMinutes(5), bus);
+        AtomicInteger loads = new AtomicInteger();
+        otherInstance.get(1L, id -> load(id, loads));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userCache.evict(1L, 1L, "john@example.com");
+            assertThat(otherInstance.getIfPresent(1L)).isNotNull();
+
+            // Act
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        assertThat(otherInstance.getIfPresent(1L)).isNull();
+        assertThat(registry.get("user.cache.invalidation.delay").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testEvict_RolledBackWriteIsNotBroadcast() {
+        // Arrange
+        UserCache otherInstance = new UserCache(100, Duration.ofMinutes(5), bus);
+        otherInstance.get(1L, id -> load(id, new AtomicInteger()));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userCache.evict(1L, 1L, "john@example.com");
+
+            // Act
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        assertThat(otherInstance.getIfPresent(1L)).isNotNull();
+    }
+
+    @Test
+    void testEvict_DoesNotWaitForALoadInFlightAndDropsItsResult() throws Exception {
+        // Arrange
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<UserDTO> reader = CompletableFuture.supplyAsync(() -> userCache.get(1L, id -> {
+            loading.countDown();
+            await(release);
+            return new UserDTO(id, "John Doe", "john@example.com", "1234567890");
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Act
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> userCache.evict(1L));
+        writer.get(5, TimeUnit.SECONDS);
+        release.countDown();
+
+        // Assert
+        assertThat(reader.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+        assertThat(userCache.getIfPresent(1L)).isNull();
+    }
+
+    @Test
+    void testInvalidation_OlderVersionKeepsNewerEntry() {
+        // Arrange
+        userCache.get(1L, id -> new UserDTO(id, "John Doe", "john@example.com", "1234567890", 5L));
+
+        // Act
+        bus.publish(new UserInvalidation(1L, 4L, null, System.currentTimeMillis()));
+
+        // Assert
+        assertThat(userCache.getIfPresent(1L).getVersion()).isEqualTo(5L);
+        assertThat(registry.get("user.cache.invalidations").tag("result", "skipped").functionCounter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void testGet_LoadBelowInvalidatedVersionIsServedButNotKept() {
+        // Arrange
+        bus.publish(new UserInvalidation(1L, 6L, null, System.currentTimeMillis()));
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        UserDTO lagging = userCache.get(1L, id -> {
+            loads.incrementAndGet();
+            return new UserDTO(id, "John Doe", "john@example.com", "1234567890", 5L);
+        });
+
+        // Assert
+        assertThat(lagging.getVersion()).isEqualTo(5L);
+        assertThat(userCache.getIfPresent(1L)).isNull();
+        assertThat(registry.get("user.cache.stale.loads").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testGetByEmail_FollowsTheEmailToTheCurrentHolder() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+        userCache.getByEmail("john@example.com", email -> load(1L, loads));
+
+        // Act
+        UserDTO cached = userCache.getByEmail("JOHN@example.com", email -> load(1L, loads));
+        bus.publish(new UserInvalidation(1L, null, "john@example.com", System.currentTimeMillis()));
+        userCache.getByEmail("john@example.com", email -> load(1L, loads));
+
+        // Assert
+        assertThat(cached.getId()).isEqualTo(1L);
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(registry.get("user.cache.email.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private UserDTO load(Long id, AtomicInteger loads) {
+        loads.incrementAndGet();
+        return new UserDTO(id, "John Doe", "john@example.com", "1234567890");
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.usercrud.cache;
+
+import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserPrefixIndexTest {
+
+    @Test
+    void testDisabledIndexIsNeverReady() {
+        // Arrange
+        UserPrefixIndex index = new UserPrefixIndex(null, new LocalUserInvalidationBus(), false);
+
+        // Act
+        index.load();
+
+        // Assert
+        assertThat(index.isReady()).isFalse();
+    }
+
+    @Test
+    void testSearch_OrdersByKeyThenIdAndResumesAfterCursor() {
+        // Arrange
+        UserPrefixIndex index = loadedIndex(
+                new UserDTO(3L, "Jon Snow", "snow@example.com", null),
+                new UserDTO(1L, "John Doe", "john@example.com", null),
+                new UserDTO(2L, "john doe", "doe@example.com", null),
+                new UserDTO(4L, "Jane Roe", "jane@example.com", null));
+
+        // Act
+        List<UserPrefixIndex.Entry> firstPage = index.search(UserPrefixIndex.Field.NAME, "jo", "", 0L, 2);
+        UserPrefixIndex.Entry last = firstPage.get(1);
+        List<UserPrefixIndex.Entry> secondPage = index.search(UserPrefixIndex.Field.NAME, "jo", last.key(), last.id(), 2);
+
+        // Assert
+        assertThat(firstPage).extracting(UserPrefixIndex.Entry::id).containsExactly(1L, 2L);
+        assertThat(secondPage).extracting(UserPrefixIndex.Entry::id).containsExactly(3L);
+        assertThat(index.search(UserPrefixIndex.Field.EMAIL, "ja", "", 0L, 10))
+                .extracting(UserPrefixIndex.Entry::id).containsExactly(4L);
+    }
+
+    @Test
+    void testPutAndRemove_KeepKeysInSync() {
+        // Arrange
+        UserPrefixIndex index = loadedIndex(new UserDTO(1L, "John Doe", "john@example.com", null));
+
+        // Act
+        index.put(new UserDTO(1L, "Johnny Doe", "johnny@example.com", null));
+        index.put(new UserDTO(2L, "Jo March", "jo@example.com", null));
+        index.remove(2L);
+
+        // Assert
+        assertThat(index.search(UserPrefixIndex.Field.EMAIL, "john@", "", 0L, 10)).isEmpty();
+        assertThat(index.search(UserPrefixIndex.Field.NAME, "johnny", "", 0L, 10))
+                .extracting(UserPrefixIndex.Entry::id).containsExactly(1L);
+        assertThat(index.search(UserPrefixIndex.Field.NAME, "jo m", "", 0L, 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testInvalidation_ReadsBackWritesFromOtherReplicas() {
+        // Arrange
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.streamAllDtosOrderedById()).thenReturn(
+                Stream.of(new UserDTO(1L, "John Doe", "john@example.com", null, 0L)));
+        when(userRepository.findDtoById(2L)).thenReturn(
+                Optional.of(new UserDTO(2L, "Jo March", "jo@example.com", null, 0L)));
+        LocalUserInvalidationBus bus = new LocalUserInvalidationBus();
+        UserPrefixIndex index = new UserPrefixIndex(userRepository, bus, true);
+        index.load();
+
+        // Act
+        bus.publish(new UserInvalidation(2L, 0L, "jo@example.com", System.currentTimeMillis()));
+        bus.publish(new UserInvalidation(1L, UserInvalidation.DELETED, null, System.currentTimeMillis()));
+
+        // Assert
+        assertThat(index.search(UserPrefixIndex.Field.NAME, "jo", "", 0L, 10))
+                .extracting(UserPrefixIndex.Entry::id).containsExactly(2L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testLoad_SkipsRowsOlderThanAppliedWrites() {
+        // Arrange
+        UserRepository userRepository = mock(UserRepository.class);
+        UserPrefixIndex index = new UserPrefixIndex(userRepository, new LocalUserInvalidationBus(), true);
+        when(userRepository.streamAllDtosOrderedById()).thenAnswer(invocation -> {
+            // A rename commits while the load streams the old row
+            index.put(new UserDTO(1L, "Johnny Doe", "john@example.com", null, 1L));
+            return Stream.of(new UserDTO(1L, "John Doe", "john@example.com", null, 0L));
+        });
+
+        // Act
+        index.load();
+
+        // Assert
+        assertThat(index.search(UserPrefixIndex.Field.NAME, "johnny", "", 0L, 10))
+                .extracting(UserPrefixIndex.Entry::id).containsExactly(1L);
+    }
+
+    private UserPrefixIndex loadedIndex(UserDTO... users) {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.streamAllDtosOrderedById()).thenReturn(Stream.of(users));
+        UserPrefixIndex index = new UserPrefixIndex(userRepository, new LocalUserInvalidationBus(), true);
+        index.load();
+        return index;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.usercrud.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class AdmissionControlledDataSourceTest {
+
+    private DataSource targetDataSource;
+    private DbAdmissionLimiter limiter;
+    private AdmissionControlledDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        targetDataSource = mock(DataSource.class);
+        when(targetDataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        limiter = new DbAdmissionLimiter("test", 2, Duration.ofMillis(50));
+        dataSource = new AdmissionControlledDataSource(targetDataSource, limiter);
+    }
+
+    @Test
+    void testGetConnection_RejectsBeyondLimit() throws SQLException {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        limiter.bindTo(registry);
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        // Act & Assert
+        assertThatThrownBy(() -> dataSource.getConnection())
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessageContaining("admission limit");
+        assertThat(registry.get("db.admission.in.use").tag("pool", "test").gauge().value()).isEqualTo(2.0);
+        assertThat(registry.get("db.admission.rejections").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testClose_ReleasesPermitOnce() throws SQLException {
+        // Arrange
+        Connection connection = dataSource.getConnection();
+
+        // Act
+        connection.close();
+        connection.close();
+
+        // Assert
+        assertThat(limiter.availablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void testGetConnection_ReleasesPermitWhenPoolFails() throws SQLException {
+        // Arrange
+        when(targetDataSource.getConnection()).thenThrow(new SQLException("pool exhausted"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> dataSource.getConnection()).hasMessage("pool exhausted");
+        assertThat(limiter.availablePermits()).isEqualTo(2);
+    }
+}
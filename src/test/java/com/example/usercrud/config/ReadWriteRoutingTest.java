@@ -0,0 +1,154 @@
+package com.example.usercrud.config;
+
+import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.service.UserService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Two independent H2 databases stand in for primary and replica; "replication" is done by hand
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary",
+        "app.datasource.replica.enabled=true",
+        "app.datasource.replica.url=jdbc:h2:mem:routing-replica",
+        "app.datasource.replica.username=sa",
+        "app.datasource.replica.check-interval=1h",
+        "app.datasource.replica.max-lag=2s",
+        "app.datasource.replica.read-your-writes-window=5s"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadWriteRoutingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        primary.update("delete from users");
+        replicaLagMonitor.sample();
+
+        // Copy the primary's schema, heartbeat table included, onto the replica
+        replica.execute("drop all objects");
+        List<String> schema = primary.queryForList("script nodata", String.class);
+        schema.stream()
+                .filter(statement -> !statement.startsWith("CREATE USER"))
+                .forEach(replica::execute);
+        replica.update("insert into users (id, name, email, created_at, updated_at, version, name_normalized, email_normalized) "
+                + "values (1000, 'Replica Copy', 'replica@example.com', current_timestamp, current_timestamp, 0, "
+                + "'replica copy', 'replica@example.com')");
+    }
+
+    @Test
+    void testReadOnlyTransactionsUseReplicaWhenCaughtUp() {
+        // Arrange
+        replicateHeartbeat(0);
+        primary.update("insert into users (id, name, email, created_at, updated_at, version) "
+                + "values (1, 'Primary Only', 'primary@example.com', current_timestamp, current_timestamp, 0)");
+
+        // Act
+        replicaLagMonitor.sample();
+        List<UserDTO> users = userService.getAllUsers(null, 20).getUsers();
+
+        // Assert
+        assertThat(replicaLagMonitor.isReplicaUsable()).isTrue();
+        assertThat(users).extracting(UserDTO::getName).containsExactly("Replica Copy");
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimary() {
+        // Arrange
+        replicateHeartbeat(60_000);
+
+        // Act
+        replicaLagMonitor.sample();
+        List<UserDTO> users = userService.getAllUsers(null, 20).getUsers();
+
+        // Assert
+        assertThat(replicaLagMonitor.isReplicaUsable()).isFalse();
+        assertThat(replicaLagMonitor.getLagMillis()).isGreaterThanOrEqualTo(60_000);
+        assertThat(users).extracting(UserDTO::getName).doesNotContain("Replica Copy");
+    }
+
+    @Test
+    void testUnreachableReplicaFallsBackToPrimary() {
+        // Arrange
+        replica.execute("drop table replica_heartbeat");
+
+        // Act
+        replicaLagMonitor.sample();
+
+        // Assert
+        assertThat(replicaLagMonitor.isReplicaHealthy()).isFalse();
+        assertThat(replicaLagMonitor.isReplicaUsable()).isFalse();
+    }
+
+    @Test
+    void testWritesPinTheClientsReadsToPrimary() throws Exception {
+        // Arrange
+        replicateHeartbeat(0);
+        replicaLagMonitor.sample();
+
+        // Act
+        MvcResult write = mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Fresh Write\",\"email\":\"fresh@example.com\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().exists(ReadYourWritesFilter.COOKIE_NAME))
+                .andReturn();
+        Cookie pin = write.getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+
+        // Assert
+        mockMvc.perform(get("/api/users").cookie(pin))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].name").value("Fresh Write"));
+        mockMvc.perform(get("/api/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].name").value("Replica Copy"));
+        mockMvc.perform(get("/api/users").cookie(new Cookie(ReadYourWritesFilter.COOKIE_NAME, "0")))
+                .andExpect(jsonPath("$.users[0].name").value("Replica Copy"));
+    }
+
+    private void replicateHeartbeat(long lagMillis) {
+        replica.update("delete from replica_heartbeat");
+        replica.update("insert into replica_heartbeat (id, beat_millis) values (1, ?)", System.currentTimeMillis() - lagMillis);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.usercrud.config;
+
+import com.example.usercrud.cache.IdempotencyStore;
+import com.example.usercrud.controller.UserController;
+import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.exception.GlobalExceptionHandler;
+import com.example.usercrud.service.UserBulkDeleteService;
+import com.example.usercrud.service.UserChangeFeedService;
+import com.example.usercrud.service.UserChangeStream;
+import com.example.usercrud.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RequestAdmissionInterceptorTest {
+
+    private UserService userService;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(UserService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(userService.getUserById(1L)).thenReturn(new UserDTO(1L, "John Doe", "john@example.com", null));
+    }
+
+    @Test
+    void testAdmittedRequestReleasesItsPermit() throws Exception {
+        // Arrange
+        MockMvc mockMvc = mockMvc(new ClientRateLimiter(100, 10, 100),
+                () -> new AdaptiveConcurrencyLimiter(2, 1, 10, Duration.ofSeconds(1), 0.5));
+
+        // Act
+        mockMvc.perform(get("/api/users/1")).andExpect(status().isOk());
+
+        // Assert
+        assertThat(meterRegistry.get("http.admission.in.flight").tag("endpoint", "UserController.getUserById").gauge().value())
+                .isZero();
+    }
+
+    @Test
+    void testClientOverItsRateGets429WithRetryAfter() throws Exception {
+        // Arrange
+        MockMvc mockMvc = mockMvc(new ClientRateLimiter(0.5, 1, 100),
+                () -> new AdaptiveConcurrencyLimiter(2, 1, 10, Duration.ofSeconds(1), 0.5));
+        mockMvc.perform(get("/api/users/1")).andExpect(status().isOk());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/1"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+                .andExpect(jsonPath("$.status").value(429));
+        assertThat(meterRegistry.get("http.admission.rejections").tag("reason", "rate").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testClientsBehindOneAddressAreToldApartByIdentityHeader() throws Exception {
+        // Arrange
+        MockMvc mockMvc = mockMvc(new ClientRateLimiter(0.5, 1, 100), new ClientIdentity("X-API-Key"),
+                () -> new AdaptiveConcurrencyLimiter(2, 1, 10, Duration.ofSeconds(1), 0.5));
+        mockMvc.perform(get("/api/users/1").header("X-API-Key", "first")).andExpect(status().isOk());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/1").header("X-API-Key", "second")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/1").header("X-API-Key", "first")).andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void testWithoutRateLimiterOnlyEndpointLimitsApply() throws Exception {
+        // Arrange
+        MockMvc mockMvc = mockMvc(null, () -> new AdaptiveConcurrencyLimiter(2, 1, 10, Duration.ofSeconds(1), 0.5));
+
+        // Act & Assert
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/users/1")).andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void testEndpointOverItsLimitGets503WithRetryAfter() throws Exception {
+        // Arrange
+        MockMvc mockMvc = mockMvc(new ClientRateLimiter(100, 10, 100), () -> AdaptiveConcurrencyLimiter.fixed(0));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.status").value(503));
+        assertThat(meterRegistry.get("http.admission.rejections").tag("reason", "concurrency").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testBatchKeepsItsFixedLimitWhenAdaptiveLimitsShed() throws Exception {
+        // Arrange
+        MockMvc mockMvc = mockMvc(null, () -> AdaptiveConcurrencyLimiter.fixed(0));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/users/batch").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/1")).andExpect(status().isServiceUnavailable());
+        assertThat(meterRegistry.get("http.admission.limit").tag("endpoint", "UserController.createUsers").gauge().value())
+                .isEqualTo(UserController.MAX_CONCURRENT_BATCHES);
+    }
+
+    @Test
+    void testLimiterGrowsAdditivelyAndBacksOffMultiplicatively() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 5, Duration.ofMillis(100), 0.5);
+
+        // Act & Assert
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        limiter.release(Duration.ofMillis(10).toNanos(), false);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+        limiter.release(Duration.ofMillis(10).toNanos(), false);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+
+        limiter.release(Duration.ofMillis(500).toNanos(), false);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        limiter.release(Duration.ofMillis(10).toNanos(), true);
+        assertThat(limiter.getLimit()).isEqualTo(1);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    private MockMvc mockMvc(ClientRateLimiter clientRateLimiter, Supplier<AdaptiveConcurrencyLimiter> limiters) {
+        return mockMvc(clientRateLimiter, new ClientIdentity(""), limiters);
+    }
+
+    private MockMvc mockMvc(ClientRateLimiter clientRateLimiter, ClientIdentity clientIdentity,
+                            Supplier<AdaptiveConcurrencyLimiter> limiters) {
+        UserController controller = new UserController(userService, mock(UserBulkDeleteService.class),
+                mock(UserChangeFeedService.class), mock(UserChangeStream.class), new JacksonProtobufHttpMessageConverter(),
+                mock(IdempotencyStore.class), clientIdentity, new ObjectMapper());
+        return MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .addInterceptors(new RequestAdmissionInterceptor(clientRateLimiter, clientIdentity, limiters, Duration.ofSeconds(1), meterRegistry))
+                .build();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.usercrud.config;
+
+import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.service.UserChangeFeedService;
+import com.example.usercrud.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// One connection per shard, so every fan-out competes for each shard's only permit
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:admission-directory",
+        "app.sharding.enabled=true",
+        "app.sharding.urls=jdbc:h2:mem:admission-0,jdbc:h2:mem:admission-1",
+        "app.sharding.username=sa",
+        "app.sharding.maximum-pool-size=1",
+        "app.db.admission.enabled=true",
+        "app.db.admission.acquire-timeout=10s"
+})
+@ActiveProfiles("test")
+class ShardAdmissionTest {
+
+    private static final int CALLERS = 32;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserChangeFeedService changeFeedService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testFanOutsCompleteWhileEveryShardPermitIsContended() throws Exception {
+        // Arrange
+        for (int i = 0; i < 6; i++) {
+            userService.createUser(new UserDTO(null, "Contended User", "contended" + i + "@example.com", null));
+        }
+        List<Future<Integer>> results = new ArrayList<>();
+
+        // Act
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> userService.getAllUsers(null, 10).getUsers().size()));
+                results.add(executor.submit(() -> changeFeedService.getChanges(null, 10).getChanges().size()));
+            }
+            // Assert
+            for (Future<Integer> result : results) {
+                assertThat(result.get(30, TimeUnit.SECONDS)).isEqualTo(6);
+            }
+        }
+        for (String pool : List.of("shard-0", "shard-1")) {
+            assertThat(meterRegistry.get("db.admission.in.use").tag("pool", pool).gauge().value()).isZero();
+            assertThat(meterRegistry.get("db.admission.rejections").tag("pool", pool).functionCounter().count()).isZero();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.usercrud.config;
+
+import com.example.usercrud.dto.BatchItemResultDTO;
+import com.example.usercrud.dto.BatchResultDTO;
+import com.example.usercrud.dto.UserChangeDTO;
+import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.dto.UserPageDTO;
+import com.example.usercrud.entity.ShardedSequenceGenerator;
+import com.example.usercrud.exception.DuplicateEmailException;
+import com.example.usercrud.repository.UserEmailDirectory;
+import com.example.usercrud.service.UserChangeFeedService;
+import com.example.usercrud.service.UserService;
+import com.example.usercrud.service.UserShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Three independent H2 databases hold the users, a fourth the email directory
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sharding-directory",
+        "app.sharding.enabled=true",
+        "app.sharding.urls=jdbc:h2:mem:sharding-0,jdbc:h2:mem:sharding-1,jdbc:h2:mem:sharding-2",
+        "app.sharding.username=sa",
+        "app.sharding.claim-timeout=1m"
+})
+@ActiveProfiles("test")
+class ShardingTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserChangeFeedService changeFeedService;
+
+    @Autowired
+    private UserShards shards;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @Autowired
+    private UserEmailDirectory emailDirectory;
+
+    @Autowired
+    @Qualifier("directoryDataSource")
+    private DataSource directoryDataSource;
+
+    private JdbcTemplate directory;
+
+    @BeforeEach
+    void setUp() {
+        directory = new JdbcTemplate(directoryDataSource);
+        directory.update("delete from user_email_directory");
+        for (int shard = 0; shard < shards.count(); shard++) {
+            JdbcTemplate database = shard(shard);
+            database.update("delete from users");
+            database.update("delete from user_tombstones");
+        }
+    }
+
+    @Test
+    void testUsersLandOnTheirEmailsShardAndIdsNameIt() {
+        // Arrange
+        List<UserDTO> created = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 30; i++) {
+            created.add(userService.createUser(user("Spread User", "spread" + i + "@example.com")));
+        }
+
+        // Assert
+        Set<Integer> used = new HashSet<>();
+        for (UserDTO user : created) {
+            int shard = ShardedSequenceGenerator.shardOf(user.getId());
+            used.add(shard);
+            assertThat(shard).isEqualTo(shards.shardFor(user.getEmail()));
+            assertThat(shard(shard).queryForObject("select count(*) from users where id = ?", Integer.class, user.getId()))
+                    .isEqualTo(1);
+            assertThat(userService.getUserById(user.getId()).getEmail()).isEqualTo(user.getEmail());
+        }
+        assertThat(used).hasSize(3);
+        int total = 0;
+        for (int shard = 0; shard < shards.count(); shard++) {
+            total += shard(shard).queryForObject("select count(*) from users", Integer.class);
+        }
+        assertThat(total).isEqualTo(30);
+    }
+
+    @Test
+    void testEmailsStayUniqueAcrossShards() {
+        // Arrange
+        String first = "first@example.com";
+        String second = emailOnAnotherShardThan(first);
+        UserDTO firstUser = userService.createUser(user("First User", first));
+        UserDTO secondUser = userService.createUser(user("Second User", second));
+
+        // Act & Assert
+        assertThatThrownBy(() -> userService.createUser(user("Shouting User", first.toUpperCase())))
+                .isInstanceOf(DuplicateEmailException.class);
+        assertThatThrownBy(() -> userService.updateUser(secondUser.getId(), user("Second User", first)))
+                .isInstanceOf(DuplicateEmailException.class);
+
+        userService.deleteUser(firstUser.getId());
+        UserDTO moved = userService.updateUser(secondUser.getId(), user("Second User", first));
+        UserDTO reused = userService.createUser(user("Third User", second));
+
+        assertThat(moved.getEmail()).isEqualTo(first);
+        assertThat(ShardedSequenceGenerator.shardOf(reused.getId())).isEqualTo(shards.shardFor(second));
+        assertThat(directory.queryForObject("select shard from user_email_directory where email = ?", Integer.class, first))
+                .isEqualTo(ShardedSequenceGenerator.shardOf(secondUser.getId()));
+    }
+
+    @Test
+    void testGetAllUsersPagesThroughEveryShardInIdOrder() {
+        // Arrange
+        Set<Long> createdIds = new HashSet<>();
+        for (int i = 0; i < 25; i++) {
+            createdIds.add(userService.createUser(user("Paged User", "paged" + i + "@example.com")).getId());
+        }
+
+        // Act
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            UserPageDTO page = userService.getAllUsers(cursor, 7);
+            page.getUsers().forEach(user -> seen.add(user.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // Assert
+        assertThat(seen).hasSize(25).isSorted().doesNotHaveDuplicates();
+        assertThat(new HashSet<>(seen)).isEqualTo(createdIds);
+    }
+
+    @Test
+    void testAbandonedClaimIsTakenOverButARecentOneIsNot() {
+        // Arrange
+        String ghost = "ghost@example.com";
+        directory.update("insert into user_email_directory (email, shard, claimed_at) values (?, ?, 0)",
+                ghost, (shards.shardFor(ghost) + 1) % shards.count());
+        directory.update("insert into user_email_directory (email, shard, claimed_at) values (?, ?, ?)",
+                "pending@example.com", 0, System.currentTimeMillis());
+
+        // Act
+        UserDTO created = userService.createUser(user("Ghost User", ghost));
+
+        // Assert
+        assertThat(ShardedSequenceGenerator.shardOf(created.getId())).isEqualTo(shards.shardFor(ghost));
+        assertThatThrownBy(() -> userService.createUser(user("Pending User", "pending@example.com")))
+                .isInstanceOf(DuplicateEmailException.class);
+    }
+
+    @Test
+    void testBatchCreateClaimsEmailsOnEveryShard() {
+        // Arrange
+        userService.createUser(user("Taken User", "taken@example.com"));
+        List<UserDTO> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(user("Batch User", "batch" + i + "@example.com"));
+        }
+        batch.add(user("Taken Again", "TAKEN@example.com"));
+
+        // Act
+        BatchResultDTO result = userService.createUsers(batch);
+
+        // Assert
+        assertThat(result.getCreated()).isEqualTo(10);
+        assertThat(result.getConflicts()).isEqualTo(1);
+        for (BatchItemResultDTO item : result.getResults()) {
+            if (item.getStatus() == BatchItemResultDTO.Status.CREATED) {
+                int shard = ShardedSequenceGenerator.shardOf(item.getUser().getId());
+                assertThat(shard).isEqualTo(shards.shardFor(item.getUser().getEmail()));
+                assertThat(shard(shard).queryForObject("select count(*) from users where id = ?", Integer.class,
+                        item.getUser().getId())).isEqualTo(1);
+            }
+        }
+        assertThat(directory.queryForObject("select count(*) from user_email_directory", Integer.class)).isEqualTo(11);
+    }
+
+    @Test
+    void testBatchCreateReportsAFailedShardAndKeepsTheOthers() {
+        // Arrange
+        List<UserDTO> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(user("Batch User", "batch" + i + "@example.com"));
+        }
+        batch.add(user("Broken Shard", "broken@example.com"));
+        int broken = shards.shardFor("broken@example.com");
+        shard(broken).update("alter table users add constraint ck_test_broken check (name <> 'Broken Shard')");
+
+        // Act
+        BatchResultDTO result;
+        try {
+            result = userService.createUsers(batch);
+        } finally {
+            shard(broken).update("alter table users drop constraint ck_test_broken");
+        }
+
+        // Assert
+        for (BatchItemResultDTO item : result.getResults()) {
+            boolean onBroken = shards.shardFor(item.getUser().getEmail()) == broken;
+            assertThat(item.getStatus()).isEqualTo(onBroken ? BatchItemResultDTO.Status.FAILED : BatchItemResultDTO.Status.CREATED);
+        }
+        assertThat(result.getFailed()).isPositive();
+        assertThat(result.getCreated() + result.getFailed()).isEqualTo(11);
+        assertThat(shard(broken).queryForObject("select count(*) from users", Integer.class)).isZero();
+        assertThat(directory.queryForObject("select count(*) from user_email_directory", Integer.class))
+                .isEqualTo(result.getCreated());
+    }
+
+    @Test
+    void testLateReleaseLeavesATakenOverClaimAlone() {
+        // Arrange
+        String email = "late@example.com";
+        int shard = shards.shardFor(email);
+        UserEmailDirectory.Claim stale = emailDirectory.claim(email, shard).orElseThrow();
+        // As if the claim had been taken over as abandoned by another writer
+        directory.update("update user_email_directory set claimed_at = ? where email = ?", stale.claimedAtMillis() + 1, email);
+
+        // Act
+        emailDirectory.release(stale);
+
+        // Assert
+        assertThat(emailDirectory.find(email)).hasValueSatisfying(held -> {
+            assertThat(held.shard()).isEqualTo(shard);
+            assertThat(held.claimedAtMillis()).isEqualTo(stale.claimedAtMillis() + 1);
+        });
+    }
+
+    @Test
+    void testChangeFeedMergesEveryShard() {
+        // Arrange
+        UserDTO kept = userService.createUser(user("Kept User", "kept@example.com"));
+        UserDTO deleted = userService.createUser(user("Deleted User", emailOnAnotherShardThan("kept@example.com")));
+        userService.deleteUser(deleted.getId());
+
+        // Act
+        List<UserChangeDTO> changes = changeFeedService.getChanges(null, 10).getChanges();
+
+        // Assert
+        assertThat(changes).extracting(UserChangeDTO::getId).containsExactlyInAnyOrder(kept.getId(), deleted.getId());
+        assertThat(changes).extracting(UserChangeDTO::getType)
+                .containsExactlyInAnyOrder(UserChangeDTO.Type.CREATED, UserChangeDTO.Type.DELETED);
+    }
+
+    private String emailOnAnotherShardThan(String email) {
+        for (int i = 0; ; i++) {
+            String candidate = "other" + i + "@example.com";
+            if (shards.shardFor(candidate) != shards.shardFor(email)) {
+                return candidate;
+            }
+        }
+    }
+
+    private JdbcTemplate shard(int shard) {
+        return new JdbcTemplate(shardRoutingDataSource.getShard(shard));
+    }
+
+    private static UserDTO user(String name, String email) {
+        return new UserDTO(null, name, email, null);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.usercrud.config;
+
+import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.entity.User;
+import com.example.usercrud.exception.GlobalExceptionHandler;
+import com.example.usercrud.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserCrudRuntimeHintsTest {
+
+    @Test
+    void testRegistersReflectionForDtosEntitiesAndExceptionHandler() throws Exception {
+        // Arrange
+        RuntimeHints hints = new RuntimeHints();
+
+        // Act
+        new UserCrudRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        // Assert
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onConstructor(UserDTO.class.getConstructor(Long.class, String.class, String.class, String.class, Long.class)).invoke())
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(UserDTO.class, "setEmail").invoke()).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onField(User.class, "email")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onMethod(GlobalExceptionHandler.class.getMethod("handleResourceNotFoundException", ResourceNotFoundException.class)).invoke())
+                .accepts(hints);
+    }
+}
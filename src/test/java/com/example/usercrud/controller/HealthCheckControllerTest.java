@@ -24,6 +24,21 @@ class HealthCheckControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value("UP"))
                 .andExpect(jsonPath("$.application").value("User CRUD API"))
-                .andExpect(jsonPath("$.database").exists());
+                .andExpect(jsonPath("$.database").value("Connected"))
+                .andExpect(jsonPath("$.databaseCheckedAt").exists());
+    }
+
+    @Test
+    void testLiveness() throws Exception {
+        mockMvc.perform(get("/api/health/liveness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"));
+    }
+
+    @Test
+    void testReadiness() throws Exception {
+        mockMvc.perform(get("/api/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"));
     }
 }
@@ -1,28 +1,62 @@
 package com.example.usercrud.controller;
 
+import com.example.usercrud.cache.IdempotencyStore;
+import com.example.usercrud.config.ClientIdentity;
+import com.example.usercrud.config.JacksonProtobufHttpMessageConverter;
+import com.example.usercrud.config.ReadYourWrites;
+import com.example.usercrud.dto.BatchItemResultDTO;
+import com.example.usercrud.dto.BatchResultDTO;
+import com.example.usercrud.dto.BulkDeleteProgressDTO;
+import com.example.usercrud.dto.BulkDeleteRequestDTO;
+import com.example.usercrud.dto.UserChangeDTO;
+import com.example.usercrud.dto.UserChangePageDTO;
 import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.dto.UserPageDTO;
+import com.example.usercrud.exception.BadRequestException;
 import com.example.usercrud.exception.DuplicateEmailException;
+import com.example.usercrud.exception.PreconditionFailedException;
+import com.example.usercrud.exception.ResourceGoneException;
 import com.example.usercrud.exception.ResourceNotFoundException;
+import com.example.usercrud.exception.ValidationFailedException;
+import com.example.usercrud.service.UserBulkDeleteService;
+import com.example.usercrud.service.UserChangeFeedService;
+import com.example.usercrud.service.UserChangeStream;
 import com.example.usercrud.service.UserService;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(UserController.class)
+@Import({IdempotencyStore.class, ClientIdentity.class})
 class UserControllerTest {
 
     @Autowired
@@ -34,6 +68,15 @@ class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private UserBulkDeleteService bulkDeleteService;
+
+    @MockBean
+    private UserChangeFeedService changeFeedService;
+
+    @MockBean
+    private UserChangeStream changeStream;
+
     private UserDTO userDTO;
 
     @BeforeEach
@@ -61,6 +104,70 @@ class UserControllerTest {
         verify(userService, times(1)).createUser(any(UserDTO.class));
     }
 
+    @Test
+    void testCreateUser_RetryWithIdempotencyKeyReplaysFirstResponse() throws Exception {
+        // Arrange
+        userDTO.setVersion(0L);
+        when(userService.createUser(any(UserDTO.class))).thenReturn(userDTO);
+        String body = objectMapper.writeValueAsString(userDTO);
+        mockMvc.perform(post("/api/users").header("Idempotency-Key", "create-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/users").header("Idempotency-Key", "create-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(1));
+
+        verify(userService, times(1)).createUser(any(UserDTO.class));
+    }
+
+    @Test
+    void testCreateUser_IdempotencyKeyReusedForDifferentBody() throws Exception {
+        // Arrange
+        when(userService.createUser(any(UserDTO.class))).thenReturn(userDTO);
+        mockMvc.perform(post("/api/users").header("Idempotency-Key", "create-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDTO)))
+                .andExpect(status().isCreated());
+        userDTO.setEmail("jane@example.com");
+
+        // Act & Assert
+        mockMvc.perform(post("/api/users").header("Idempotency-Key", "create-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDTO)))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(userService, times(1)).createUser(any(UserDTO.class));
+    }
+
+    @Test
+    void testCreateUser_FailedAttemptIsNotReplayed() throws Exception {
+        // Arrange
+        when(userService.createUser(any(UserDTO.class)))
+                .thenThrow(new DuplicateEmailException("Email already exists: john@example.com"))
+                .thenReturn(userDTO);
+        String body = objectMapper.writeValueAsString(userDTO);
+        mockMvc.perform(post("/api/users").header("Idempotency-Key", "create-3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isConflict());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/users").header("Idempotency-Key", "create-3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+
+        verify(userService, times(2)).createUser(any(UserDTO.class));
+    }
+
     @Test
     void testCreateUser_ValidationError() throws Exception {
         // Arrange
@@ -75,6 +182,55 @@ class UserControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void testCreateUsers_Batch() throws Exception {
+        // Arrange
+        UserDTO duplicate = new UserDTO(null, "Jane Doe", "jane@example.com", null);
+        BatchResultDTO result = new BatchResultDTO(List.of(
+                new BatchItemResultDTO(0, BatchItemResultDTO.Status.CREATED, userDTO, null),
+                new BatchItemResultDTO(1, BatchItemResultDTO.Status.CONFLICT, duplicate, "Email already exists: jane@example.com")));
+        when(userService.createUsers(any())).thenReturn(result);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(userDTO, duplicate))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.conflicts").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.results[1].status").value("CONFLICT"));
+    }
+
+    @Test
+    void testGetChanges() throws Exception {
+        // Arrange
+        UserChangePageDTO page = new UserChangePageDTO(List.of(
+                new UserChangeDTO(UserChangeDTO.Type.UPDATED, 1L, userDTO, LocalDateTime.of(2026, 1, 1, 12, 0)),
+                new UserChangeDTO(UserChangeDTO.Type.DELETED, 2L, null, LocalDateTime.of(2026, 1, 1, 12, 1))),
+                "next", false);
+        when(changeFeedService.getChanges("abc", 100)).thenReturn(page);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/changes").param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[0].type").value("UPDATED"))
+                .andExpect(jsonPath("$.changes[0].user.email").value("john@example.com"))
+                .andExpect(jsonPath("$.changes[1].type").value("DELETED"))
+                .andExpect(jsonPath("$.changes[1].user").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void testGetChanges_ExpiredCursor() throws Exception {
+        // Arrange
+        when(changeFeedService.getChanges("old", 100)).thenThrow(new ResourceGoneException("Cursor is older than the tombstone retention"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/changes").param("cursor", "old"))
+                .andExpect(status().isGone());
+    }
+
     @Test
     void testGetAllUsers() throws Exception {
         // Arrange
@@ -85,14 +241,243 @@ class UserControllerTest {
         userDTO2.setPhone("0987654321");
 
         List<UserDTO> users = Arrays.asList(userDTO, userDTO2);
-        when(userService.getAllUsers()).thenReturn(users);
+        when(userService.getAllUsers(null, 20)).thenReturn(new UserPageDTO(users, "Mg"));
 
         // Act & Assert
         mockMvc.perform(get("/api/users"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].name").value("John Doe"))
-                .andExpect(jsonPath("$[1].name").value("Jane Doe"));
+                .andExpect(jsonPath("$.users.length()").value(2))
+                .andExpect(jsonPath("$.users[0].name").value("John Doe"))
+                .andExpect(jsonPath("$.users[1].name").value("Jane Doe"))
+                .andExpect(jsonPath("$.nextCursor").value("Mg"));
+    }
+
+    @Test
+    void testGetAllUsers_WithCursorAndSize() throws Exception {
+        // Arrange
+        when(userService.getAllUsers("Mg", 50)).thenReturn(new UserPageDTO(List.of(userDTO), null));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users").param("cursor", "Mg").param("size", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void testGetAllUsers_InvalidCursor() throws Exception {
+        // Arrange
+        when(userService.getAllUsers("bogus", 20)).thenThrow(new BadRequestException("Invalid cursor: bogus"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users").param("cursor", "bogus"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetAllUsers_Cbor() throws Exception {
+        // Arrange
+        when(userService.getAllUsers(null, 20)).thenReturn(new UserPageDTO(List.of(userDTO), "Mg"));
+
+        // Act
+        byte[] body = mockMvc.perform(get("/api/users").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Assert
+        UserPageDTO page = new CBORMapper().readValue(body, UserPageDTO.class);
+        assertThat(page.getUsers()).extracting(UserDTO::getName).containsExactly("John Doe");
+        assertThat(page.getNextCursor()).isEqualTo("Mg");
+    }
+
+    @Test
+    void testGetAllUsers_Protobuf() throws Exception {
+        // Arrange
+        when(userService.getAllUsers(null, 20)).thenReturn(new UserPageDTO(List.of(userDTO), "Mg"));
+        ProtobufMapper protobufMapper = new ProtobufMapper();
+        ProtobufSchema schema = protobufMapper.generateSchemaFor(UserPageDTO.class);
+
+        // Act
+        byte[] body = mockMvc.perform(get("/api/users").accept(JacksonProtobufHttpMessageConverter.PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(JacksonProtobufHttpMessageConverter.PROTOBUF))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Assert
+        UserPageDTO page = protobufMapper.readerFor(UserPageDTO.class).with(schema).readValue(body);
+        assertThat(page.getUsers()).extracting(UserDTO::getEmail).containsExactly("john@example.com");
+        assertThat(page.getNextCursor()).isEqualTo("Mg");
+    }
+
+    @Test
+    void testGetProtobufSchema() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/users/schema.proto").param("type", "UserPageDTO"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("message UserPageDTO")));
+        mockMvc.perform(get("/api/users/schema.proto").param("type", "User"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExportUsers_WritesNdjson() throws Exception {
+        // Arrange
+        UserDTO userDTO2 = new UserDTO(2L, "Jane Doe", "jane@example.com", "0987654321");
+        doAnswer(invocation -> {
+            Consumer<UserDTO> consumer = invocation.getArgument(0);
+            consumer.accept(userDTO);
+            consumer.accept(userDTO2);
+            return null;
+        }).when(userService).exportUsers(any(Consumer.class));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[0], UserDTO.class).getName()).isEqualTo("John Doe");
+        assertThat(objectMapper.readValue(lines[1], UserDTO.class).getName()).isEqualTo("Jane Doe");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExportUsers_KeepsReadYourWritesPinOnAsyncThread() throws Exception {
+        // Arrange
+        AtomicBoolean pinnedWhileExporting = new AtomicBoolean();
+        doAnswer(invocation -> {
+            pinnedWhileExporting.set(ReadYourWrites.isPinnedToPrimary());
+            return null;
+        }).when(userService).exportUsers(any(Consumer.class));
+        ReadYourWrites.pinToPrimary();
+        MvcResult result;
+        try {
+            result = mockMvc.perform(get("/api/users/export"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+        } finally {
+            ReadYourWrites.clear();
+        }
+
+        // Act
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        // Assert
+        assertThat(pinnedWhileExporting).isTrue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExportUsers_WritesCborSequence() throws Exception {
+        // Arrange
+        UserDTO userDTO2 = new UserDTO(2L, "Jane Doe", "jane@example.com", "0987654321");
+        doAnswer(invocation -> {
+            Consumer<UserDTO> consumer = invocation.getArgument(0);
+            consumer.accept(userDTO);
+            consumer.accept(userDTO2);
+            return null;
+        }).when(userService).exportUsers(any(Consumer.class));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/users/export").accept(UserController.CBOR_SEQ_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(UserController.CBOR_SEQ_VALUE))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (MappingIterator<UserDTO> users = new CBORMapper().readerFor(UserDTO.class).readValues(body)) {
+            assertThat(users.readAll()).extracting(UserDTO::getName).containsExactly("John Doe", "Jane Doe");
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExportUsers_PrefersHigherQualityOverHeaderOrder() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            Consumer<UserDTO> consumer = invocation.getArgument(0);
+            consumer.accept(userDTO);
+            return null;
+        }).when(userService).exportUsers(any(Consumer.class));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/users/export")
+                        .header(HttpHeaders.ACCEPT, UserController.CBOR_SEQ_VALUE + ";q=0.5, "
+                                + UserController.SMILE_VALUE + ";q=0, application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"name\":\"John Doe\"")));
+    }
+
+    @Test
+    void testBulkDeleteUsers_StreamsProgress() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            Consumer<BulkDeleteProgressDTO> progress = invocation.getArgument(1);
+            progress.accept(new BulkDeleteProgressDTO(1, 500, 500, false));
+            progress.accept(new BulkDeleteProgressDTO(2, 20, 520, false));
+            progress.accept(new BulkDeleteProgressDTO(2, 0, 520, true));
+            return 520L;
+        }).when(bulkDeleteService).delete(any(BulkDeleteRequestDTO.class), any(Consumer.class));
+
+        // Act
+        MvcResult result = mockMvc.perform(post("/api/users/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"updatedBefore\":\"2024-01-01T00:00:00\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(3);
+        BulkDeleteProgressDTO last = objectMapper.readValue(lines[2], BulkDeleteProgressDTO.class);
+        assertThat(last.isDone()).isTrue();
+        assertThat(last.getTotalDeleted()).isEqualTo(520);
+    }
+
+    @Test
+    void testBulkDeleteUsers_RejectsEmptyRequest() throws Exception {
+        // Arrange
+        doThrow(new BadRequestException("Bulk delete needs ids, updatedBefore, or both"))
+                .when(bulkDeleteService).validate(any(BulkDeleteRequestDTO.class));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/users/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testSearchUsers() throws Exception {
+        // Arrange
+        when(userService.searchUsers("jo", "email", null, 20)).thenReturn(new UserPageDTO(List.of(userDTO), "next"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/search").param("q", "jo").param("by", "email"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].email").value("john@example.com"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
     }
 
     @Test
@@ -107,6 +492,60 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.email").value("john@example.com"));
     }
 
+    @Test
+    void testGetUserById_ReturnsETag() throws Exception {
+        // Arrange
+        userDTO.setVersion(3L);
+        when(userService.getUserById(1L)).thenReturn(userDTO);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    void testGetUserByEmail_ReturnsUserWithETag() throws Exception {
+        // Arrange
+        userDTO.setVersion(2L);
+        when(userService.getUserByEmail("john@example.com")).thenReturn(userDTO);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/by-email").param("email", "john@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""))
+                .andExpect(jsonPath("$.name").value("John Doe"));
+    }
+
+    @Test
+    void testGetUserById_NotModifiedWhenETagMatches() throws Exception {
+        // Arrange
+        when(userService.getUserVersion(1L)).thenReturn(3L);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/1").header("If-None-Match", "W/\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+
+        verify(userService, never()).getUserById(1L);
+    }
+
+    @Test
+    void testGetUserById_StaleETagReturnsBody() throws Exception {
+        // Arrange
+        userDTO.setVersion(4L);
+        when(userService.getUserVersion(1L)).thenReturn(4L);
+        when(userService.getUserById(1L)).thenReturn(userDTO);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.name").value("John Doe"));
+    }
+
     @Test
     void testGetUserById_NotFound() throws Exception {
         // Arrange
@@ -120,7 +559,7 @@ class UserControllerTest {
     @Test
     void testUpdateUser_Success() throws Exception {
         // Arrange
-        when(userService.updateUser(eq(1L), any(UserDTO.class))).thenReturn(userDTO);
+        when(userService.updateUser(eq(1L), any(UserDTO.class), isNull())).thenReturn(userDTO);
 
         // Act & Assert
         mockMvc.perform(put("/api/users/1")
@@ -130,10 +569,40 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.name").value("John Doe"));
     }
 
+    @Test
+    void testUpdateUser_IfMatchPassesExpectedVersion() throws Exception {
+        // Arrange
+        userDTO.setVersion(4L);
+        when(userService.updateUser(eq(1L), any(UserDTO.class), eq(3L))).thenReturn(userDTO);
+
+        // Act & Assert
+        mockMvc.perform(put("/api/users/1")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDTO)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    void testUpdateUser_IfMatchMismatch() throws Exception {
+        // Arrange
+        when(userService.updateUser(eq(1L), any(UserDTO.class), eq(3L)))
+                .thenThrow(new PreconditionFailedException("User 1 has version 4, not the expected 3"));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/users/1")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDTO)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value(412));
+    }
+
     @Test
     void testUpdateUser_DuplicateEmail() throws Exception {
         // Arrange
-        when(userService.updateUser(eq(1L), any(UserDTO.class)))
+        when(userService.updateUser(eq(1L), any(UserDTO.class), isNull()))
                 .thenThrow(new DuplicateEmailException("Email already exists"));
 
         // Act & Assert
@@ -143,6 +612,38 @@ class UserControllerTest {
                 .andExpect(status().isConflict());
     }
 
+    @Test
+    void testPatchUser_MergePatch() throws Exception {
+        // Arrange
+        userDTO.setVersion(4L);
+        when(userService.patchUser(eq(1L), argThat(patch -> patch.has("phone") && patch.size() == 1), eq(3L)))
+                .thenReturn(userDTO);
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/users/1")
+                        .header("If-Match", "\"3\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"phone\":\"5550001111\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.name").value("John Doe"));
+    }
+
+    @Test
+    void testPatchUser_ValidationErrorsMatchPutShape() throws Exception {
+        // Arrange
+        when(userService.patchUser(eq(1L), any(), isNull()))
+                .thenThrow(new ValidationFailedException(Map.of("email", "Email should be valid")));
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/users/1")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"email\":\"not-an-email\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Validation failed"))
+                .andExpect(jsonPath("$.errors.email").value("Email should be valid"));
+    }
+
     @Test
     void testDeleteUser_Success() throws Exception {
         // Arrange
@@ -155,6 +656,20 @@ class UserControllerTest {
         verify(userService, times(1)).deleteUser(1L);
     }
 
+    @Test
+    void testDeleteUser_RetryWithIdempotencyKeyIsStillNoContent() throws Exception {
+        // Arrange
+        doNothing().when(userService).deleteUser(1L);
+        mockMvc.perform(delete("/api/users/1").header("Idempotency-Key", "delete-1"))
+                .andExpect(status().isNoContent());
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/users/1").header("Idempotency-Key", "delete-1"))
+                .andExpect(status().isNoContent());
+
+        verify(userService, times(1)).deleteUser(1L);
+    }
+
     @Test
     void testDeleteUser_NotFound() throws Exception {
         // Arrange
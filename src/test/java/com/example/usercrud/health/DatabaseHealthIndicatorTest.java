@@ -0,0 +1,88 @@
+package com.example.usercrud.health;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class DatabaseHealthIndicatorTest {
+
+    @Test
+    void testCurrent_DownUntilFirstSample() {
+        // Arrange
+        DatabaseHealthIndicator indicator = new DatabaseHealthIndicator(mock(DataSource.class),
+                Duration.ofSeconds(1), Duration.ofSeconds(10));
+
+        // Act & Assert
+        assertThat(indicator.current().up()).isFalse();
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.DOWN);
+    }
+
+    @Test
+    void testSample_Up() throws SQLException {
+        // Arrange
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn("MySQL");
+        DatabaseHealthIndicator indicator = new DatabaseHealthIndicator(dataSource, Duration.ofSeconds(1), Duration.ofSeconds(10));
+
+        // Act
+        indicator.sample();
+        indicator.current();
+        indicator.health();
+
+        // Assert
+        assertThat(indicator.current().up()).isTrue();
+        assertThat(indicator.health().getDetails()).containsEntry("database", "MySQL");
+        // Reading the cached sample never touches the pool again
+        verify(dataSource, times(1)).getConnection();
+    }
+
+    @Test
+    void testSample_DownOnError() throws SQLException {
+        // Arrange
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+        DatabaseHealthIndicator indicator = new DatabaseHealthIndicator(dataSource, Duration.ofSeconds(1), Duration.ofSeconds(10));
+
+        // Act
+        indicator.sample();
+
+        // Assert
+        assertThat(indicator.current().up()).isFalse();
+        assertThat(indicator.current().error()).isEqualTo("Connection refused");
+    }
+
+    @Test
+    void testSample_DownOnTimeout() throws SQLException {
+        // Arrange
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            Thread.sleep(2000);
+            return mock(Connection.class);
+        });
+        DatabaseHealthIndicator indicator = new DatabaseHealthIndicator(dataSource, Duration.ofMillis(100), Duration.ofSeconds(10));
+
+        // Act
+        long start = System.nanoTime();
+        indicator.sample();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Assert
+        assertThat(elapsedMillis).isLessThan(1000);
+        assertThat(indicator.current().up()).isFalse();
+        assertThat(indicator.current().error()).contains("timed out");
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.usercrud.repository;
+
+import com.example.usercrud.entity.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.usercrud.repository.UserDynamicUpdateTest$RecordingStatementInspector")
+@ActiveProfiles("test")
+class UserDynamicUpdateTest {
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testEntityUpdateWritesOnlyChangedColumns() {
+        // Arrange
+        User saved = userRepository.saveAndFlush(new User("John Doe", "john@example.com", "1234567890"));
+        entityManager.clear();
+        User user = userRepository.findById(saved.getId()).orElseThrow();
+        statements.clear();
+
+        // Act
+        user.setPhone("5550001111");
+        entityManager.flush();
+
+        // Assert
+        List<String> updates = updates();
+        assertThat(updates).hasSize(1);
+        assertThat(updates.get(0)).contains("phone").contains("version").doesNotContain("name").doesNotContain("email");
+    }
+
+    @Test
+    void testUnchangedEntityIssuesNoUpdate() {
+        // Arrange
+        User saved = userRepository.saveAndFlush(new User("Jane Doe", "jane@example.com", null));
+        entityManager.clear();
+        User user = userRepository.findById(saved.getId()).orElseThrow();
+        statements.clear();
+
+        // Act
+        user.setName("Jane Doe");
+        entityManager.flush();
+
+        // Assert
+        assertThat(updates()).isEmpty();
+    }
+
+    private static List<String> updates() {
+        return statements.stream()
+                .map(sql -> sql.toLowerCase(Locale.ROOT))
+                .filter(sql -> sql.startsWith("update"))
+                .toList();
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
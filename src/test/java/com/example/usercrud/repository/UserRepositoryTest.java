@@ -1,15 +1,24 @@
 package com.example.usercrud.repository;
 
+import com.example.usercrud.dto.UserDTO;
 import com.example.usercrud.entity.User;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DataJpaTest
 @ActiveProfiles("test")
@@ -18,6 +27,9 @@ class UserRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void testSaveUser() {
         // Arrange
@@ -71,6 +83,94 @@ class UserRepositoryTest {
         assertThat(users).hasSize(2);
     }
 
+    @Test
+    void testFindDtoPageAfter_KeysetPage() {
+        // Arrange
+        User first = userRepository.save(new User("User 1", "user1@example.com", "1111111111"));
+        User second = userRepository.save(new User("User 2", "user2@example.com", "2222222222"));
+        User third = userRepository.save(new User("User 3", "user3@example.com", "3333333333"));
+
+        // Act
+        List<UserDTO> page = userRepository.findDtoPageAfter(first.getId(), Limit.of(1));
+
+        // Assert
+        assertThat(page).extracting(UserDTO::getId).containsExactly(second.getId());
+        assertThat(userRepository.findDtoPageAfter(third.getId(), Limit.of(10))).isEmpty();
+    }
+
+    @Test
+    void testSearchByPrefix_CaseInsensitiveKeysetAndEscaped() {
+        // Arrange
+        User john = userRepository.save(new User("John Doe", "John.Doe@Example.com", null));
+        User johnny = userRepository.save(new User("johnny Walker", "walker@example.com", null));
+        userRepository.save(new User("Jo_Anne", "joanne@example.com", null));
+        userRepository.save(new User("Joxanne", "joxanne@example.com", null));
+        entityManager.flush();
+
+        // Act
+        List<UserDTO> firstPage = userRepository.searchByNamePrefix("john%", "", 0L, Limit.of(1));
+        List<UserDTO> secondPage = userRepository.searchByNamePrefix("john%", "john doe", john.getId(), Limit.of(5));
+        List<UserDTO> underscore = userRepository.searchByNamePrefix("jo!_%", "", 0L, Limit.of(5));
+        List<UserDTO> byEmail = userRepository.searchByEmailPrefix("john.%", "", 0L, Limit.of(5));
+
+        // Assert
+        assertThat(firstPage).extracting(UserDTO::getId).containsExactly(john.getId());
+        assertThat(secondPage).extracting(UserDTO::getId).containsExactly(johnny.getId());
+        assertThat(underscore).extracting(UserDTO::getName).containsExactly("Jo_Anne");
+        assertThat(byEmail).extracting(UserDTO::getEmail).containsExactly("John.Doe@Example.com");
+    }
+
+    @Test
+    void testFillSearchKeys_MakesRowsFromBeforeTheKeysFindable() {
+        // Arrange
+        User legacy = userRepository.save(new User("Legacy User", "Legacy@Example.com", null));
+        User current = userRepository.save(new User("Current User", "current@example.com", null));
+        entityManager.flush();
+        entityManager.getEntityManager()
+                .createNativeQuery("update users set name_normalized = null, email_normalized = null where id = ?")
+                .setParameter(1, legacy.getId())
+                .executeUpdate();
+        entityManager.clear();
+
+        // Act
+        List<UserRepository.MissingSearchKeys> missing = userRepository.findMissingSearchKeys(Limit.of(10));
+        missing.forEach(row -> userRepository.fillSearchKeys(row.getId(),
+                User.normalize(row.getName()), User.normalize(row.getEmail())));
+
+        // Assert
+        assertThat(missing).extracting(UserRepository.MissingSearchKeys::getId).containsExactly(legacy.getId());
+        assertThat(userRepository.findMissingSearchKeys(Limit.of(10))).isEmpty();
+        assertThat(userRepository.findDtoByEmailNormalized("legacy@example.com")).isPresent();
+        assertThat(userRepository.searchByNamePrefix("legacy%", "", 0L, Limit.of(5)))
+                .extracting(UserDTO::getId).containsExactly(legacy.getId());
+        assertThat(userRepository.fillSearchKeys(current.getId(), "other", "other")).isZero();
+    }
+
+    @Test
+    void testDtoProjections_LeavePersistenceContextEmpty() {
+        // Arrange
+        User saved = userRepository.save(new User("User 1", "user1@example.com", "1111111111"));
+        userRepository.save(new User("User 2", "user2@example.com", "2222222222"));
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        Optional<UserDTO> byId = userRepository.findDtoById(saved.getId());
+        List<UserDTO> page = userRepository.findDtoPageAfter(0L, Limit.of(10));
+        List<UserDTO> exported;
+        try (Stream<UserDTO> users = userRepository.streamAllDtosOrderedById()) {
+            exported = users.toList();
+        }
+
+        // Assert
+        assertThat(byId).get().extracting(UserDTO::getEmail).isEqualTo("user1@example.com");
+        assertThat(byId.get().getVersion()).isZero();
+        assertThat(page).hasSize(2);
+        assertThat(exported).extracting(UserDTO::getEmail).containsExactly("user1@example.com", "user2@example.com");
+        assertThat(entityManager.getEntityManager().unwrap(SessionImplementor.class)
+                .getPersistenceContextInternal().getNumberOfManagedEntities()).isZero();
+    }
+
     @Test
     void testDeleteUser() {
         // Arrange
@@ -78,12 +178,39 @@ class UserRepositoryTest {
         User savedUser = userRepository.save(user);
 
         // Act
-        userRepository.deleteById(savedUser.getId());
+        int deleted = userRepository.deleteUserById(savedUser.getId());
+        int deletedAgain = userRepository.deleteUserById(savedUser.getId());
+        entityManager.clear();
 
         // Assert
+        assertThat(deleted).isEqualTo(1);
+        assertThat(deletedAgain).isZero();
         assertThat(userRepository.findById(savedUser.getId())).isEmpty();
     }
 
+    @Test
+    void testBulkDeleteQueries() {
+        // Arrange
+        User old1 = userRepository.save(new User("Old 1", "old1@example.com", null));
+        User old2 = userRepository.save(new User("Old 2", "old2@example.com", null));
+        User recent = userRepository.save(new User("Recent", "recent@example.com", null));
+        entityManager.flush();
+        LocalDateTime cutoff = recent.getUpdatedAt().plusSeconds(1);
+        LocalDateTime beforeAll = old1.getUpdatedAt().minusSeconds(1);
+
+        // Act
+        List<Long> candidates = userRepository.findIdsUpdatedBefore(cutoff, Limit.of(2));
+        int keptByFilter = userRepository.deleteByIdsUpdatedBefore(List.of(old1.getId()), beforeAll);
+        int deleted = userRepository.deleteByIds(candidates);
+        entityManager.clear();
+
+        // Assert
+        assertThat(candidates).containsExactly(old1.getId(), old2.getId());
+        assertThat(keptByFilter).isZero();
+        assertThat(deleted).isEqualTo(2);
+        assertThat(userRepository.findAll()).extracting(User::getId).containsExactly(recent.getId());
+    }
+
     @Test
     void testUpdateUser() {
         // Arrange
@@ -99,4 +226,56 @@ class UserRepositoryTest {
         assertThat(updatedUser.getName()).isEqualTo("New Name");
         assertThat(updatedUser.getEmail()).isEqualTo("new@example.com");
     }
+
+    @Test
+    void testVersionIncrementsOnUpdate() {
+        // Arrange
+        User savedUser = userRepository.saveAndFlush(new User("Versioned", "versioned@example.com", "5555555555"));
+        Long initialVersion = savedUser.getVersion();
+
+        // Act
+        savedUser.setName("Versioned Again");
+        userRepository.saveAndFlush(savedUser);
+
+        // Assert
+        assertThat(initialVersion).isZero();
+        assertThat(userRepository.findVersionById(savedUser.getId())).contains(initialVersion + 1);
+    }
+
+    @Test
+    void testUpdateById_SingleStatementBumpsVersion() {
+        // Arrange
+        User savedUser = userRepository.saveAndFlush(new User("Old Name", "old@example.com", "4444444444"));
+
+        // Act
+        int unconditional = userRepository.updateById(savedUser.getId(), "New Name", "new@example.com", null, "new name", "new@example.com", LocalDateTime.now(), null);
+        int staleVersion = userRepository.updateById(savedUser.getId(), "Stale", "stale@example.com", null, "stale", "stale@example.com", LocalDateTime.now(), 0L);
+        int currentVersion = userRepository.updateById(savedUser.getId(), "Newer Name", "new@example.com", null, "newer name", "new@example.com", LocalDateTime.now(), 1L);
+        int missingRow = userRepository.updateById(savedUser.getId() + 1000, "Nobody", "nobody@example.com", null, "nobody", "nobody@example.com", LocalDateTime.now(), null);
+        entityManager.clear();
+
+        // Assert
+        assertThat(unconditional).isEqualTo(1);
+        assertThat(staleVersion).isZero();
+        assertThat(currentVersion).isEqualTo(1);
+        assertThat(missingRow).isZero();
+        User reloaded = userRepository.findById(savedUser.getId()).orElseThrow();
+        assertThat(reloaded.getName()).isEqualTo("Newer Name");
+        assertThat(reloaded.getVersion()).isEqualTo(2L);
+        assertThat(reloaded.getUpdatedAt()).isNotNull();
+    }
+
+    @Test
+    void testDuplicateEmail_ReportsNamedConstraint() {
+        // Arrange
+        userRepository.saveAndFlush(new User("First", "taken@example.com", null));
+        User second = userRepository.saveAndFlush(new User("Second", "free@example.com", null));
+
+        // Act & Assert
+        assertThatThrownBy(() -> userRepository.updateById(second.getId(), "Second", "taken@example.com", null, "second", "taken@example.com", LocalDateTime.now(), null))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .cause()
+                .isInstanceOfSatisfying(ConstraintViolationException.class,
+                        violation -> assertThat(violation.getConstraintName()).containsIgnoringCase(User.EMAIL_CONSTRAINT));
+    }
 }
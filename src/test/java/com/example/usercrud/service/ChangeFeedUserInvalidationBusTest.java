@@ -0,0 +1,78 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.cache.UserCache;
+import com.example.usercrud.dto.UserDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Writes made straight through JDBC stand in for another replica sharing the database
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:invalidation-bus",
+        "app.cache.users.invalidation=change-feed",
+        "app.change-feed.poll-interval=1h"
+})
+@ActiveProfiles("test")
+class ChangeFeedUserInvalidationBusTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private ChangeFeedUserInvalidationBus bus;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testWriteOnAnotherInstanceEvictsAfterPoll() {
+        // Arrange
+        UserDTO created = userService.createUser(new UserDTO(null, "Cached User", "cached@example.com", null));
+        userService.getUserById(created.getId());
+        jdbcTemplate.update("update users set name = ?, name_normalized = ?, version = version + 1, updated_at = ?, "
+                        + "change_seq = ? where id = ?",
+                "Renamed User", "renamed user", LocalDateTime.now(ZoneOffset.UTC), nextChangeSeq(), created.getId());
+        assertThat(userService.getUserById(created.getId()).getName()).isEqualTo("Cached User");
+
+        // Act
+        bus.poll();
+
+        // Assert
+        assertThat(userCache.getIfPresent(created.getId())).isNull();
+        assertThat(userService.getUserById(created.getId()).getName()).isEqualTo("Renamed User");
+        assertThat(userService.getUserByEmail("CACHED@example.com").getName()).isEqualTo("Renamed User");
+    }
+
+    @Test
+    void testDeleteOnAnotherInstanceEvictsAfterPoll() {
+        // Arrange
+        UserDTO created = userService.createUser(new UserDTO(null, "Doomed User", "doomed@example.com", null));
+        userService.getUserByEmail("doomed@example.com");
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        jdbcTemplate.update("insert into user_tombstones (user_id, deleted_at, change_seq) values (?, ?, ?)",
+                created.getId(), now, nextChangeSeq());
+        jdbcTemplate.update("delete from users where id = ?", created.getId());
+
+        // Act
+        bus.poll();
+
+        // Assert
+        assertThat(userCache.getIfPresent(created.getId())).isNull();
+    }
+
+    // Numbered as UserChangeLog would, one statement at a time
+    private long nextChangeSeq() {
+        jdbcTemplate.update("update user_change_sequence set last_assigned = last_assigned + 1 where id = 1");
+        return jdbcTemplate.queryForObject("select last_assigned from user_change_sequence where id = 1", Long.class);
+    }
+}
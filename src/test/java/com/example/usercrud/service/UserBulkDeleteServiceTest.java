@@ -0,0 +1,103 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.cache.LocalUserInvalidationBus;
+import com.example.usercrud.cache.UserCache;
+import com.example.usercrud.cache.UserPrefixIndex;
+import com.example.usercrud.dto.BulkDeleteProgressDTO;
+import com.example.usercrud.dto.BulkDeleteRequestDTO;
+import com.example.usercrud.exception.BadRequestException;
+import com.example.usercrud.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserBulkDeleteServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private UserChangeLog changeLog;
+
+    private UserCache userCache;
+    private UserBulkDeleteService bulkDeleteService;
+
+    @BeforeEach
+    void setUp() {
+        userCache = spy(new UserCache(100, Duration.ofMinutes(5), new LocalUserInvalidationBus()));
+        bulkDeleteService = new UserBulkDeleteService(userRepository, userCache, new UserPrefixIndex(null, new LocalUserInvalidationBus(), false),
+                transactionManager, eventPublisher, new UserShards(false, List.of(), null), changeLog, 2);
+    }
+
+    @Test
+    void testDelete_ChunksIdListAndReportsProgress() {
+        // Arrange
+        when(userRepository.deleteByIds(List.of(1L, 2L))).thenReturn(2);
+        when(userRepository.deleteByIds(List.of(3L))).thenReturn(0);
+        List<BulkDeleteProgressDTO> progress = new ArrayList<>();
+
+        // Act
+        long total = bulkDeleteService.delete(new BulkDeleteRequestDTO(List.of(1L, 2L, 3L), null), progress::add);
+
+        // Assert
+        assertThat(total).isEqualTo(2);
+        assertThat(progress).extracting(BulkDeleteProgressDTO::getDeleted).containsExactly(2, 0, 0);
+        assertThat(progress).extracting(BulkDeleteProgressDTO::isDone).containsExactly(false, false, true);
+        verify(transactionManager, times(2)).commit(any());
+        verify(userCache).evictAll(List.of(1L, 2L));
+        verify(userCache).evictAll(List.of(3L));
+        verify(userRepository).insertTombstones(eq(List.of(1L, 2L)), any());
+        verify(changeLog).recordTombstones(List.of(1L, 2L));
+        verify(eventPublisher, times(1)).publishEvent(any(UsersChangedEvent.class));
+    }
+
+    @Test
+    void testDelete_FilterSelectsChunksUntilExhausted() {
+        // Arrange
+        LocalDateTime cutoff = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(userRepository.findIdsUpdatedBefore(cutoff, Limit.of(2)))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+        when(userRepository.deleteByIdsUpdatedBefore(List.of(1L, 2L), cutoff)).thenReturn(2);
+        when(userRepository.deleteByIdsUpdatedBefore(List.of(3L), cutoff)).thenReturn(1);
+        List<BulkDeleteProgressDTO> progress = new ArrayList<>();
+
+        // Act
+        long total = bulkDeleteService.delete(new BulkDeleteRequestDTO(null, cutoff), progress::add);
+
+        // Assert
+        assertThat(total).isEqualTo(3);
+        assertThat(progress).extracting(BulkDeleteProgressDTO::getTotalDeleted).containsExactly(2L, 3L, 3L);
+        verify(userRepository, times(2)).findIdsUpdatedBefore(cutoff, Limit.of(2));
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    void testValidate_RequiresIdsOrFilter() {
+        // Act & Assert
+        assertThatThrownBy(() -> bulkDeleteService.validate(new BulkDeleteRequestDTO(List.of(), null)))
+                .isInstanceOf(BadRequestException.class);
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.dto.UserChangeDTO;
+import com.example.usercrud.dto.UserChangePageDTO;
+import com.example.usercrud.entity.User;
+import com.example.usercrud.exception.BadRequestException;
+import com.example.usercrud.exception.ResourceGoneException;
+import com.example.usercrud.repository.UserChangeSequenceRepository;
+import com.example.usercrud.repository.UserRepository;
+import com.example.usercrud.repository.UserTombstoneRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Writes commit for real, so UserChangeLog numbers them as it would in production
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserChangeFeedServiceTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserTombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private UserChangeSequenceRepository sequenceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private UserChangeLog changeLog;
+    private UserShards shards;
+    private TransactionTemplate transaction;
+    private UserChangeFeedService changeFeedService;
+
+    @BeforeEach
+    void setUp() {
+        changeLog = new UserChangeLog(userRepository, tombstoneRepository, sequenceRepository);
+        shards = new UserShards(false, List.of(), transactionManager);
+        transaction = new TransactionTemplate(transactionManager);
+        changeFeedService = new UserChangeFeedService(userRepository, tombstoneRepository, sequenceRepository,
+                shards, Duration.ofDays(7), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAllInBatch();
+        tombstoneRepository.deleteAllInBatch();
+        sequenceRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void testGetChanges_MergesUpsertsAndTombstonesInOrder() {
+        // Arrange
+        User kept = create("John Doe", "john@example.com");
+        User deleted = create("Jane Doe", "jane@example.com");
+        write(() -> {
+            userRepository.updateById(kept.getId(), "Johnny Doe", "john@example.com", null,
+                    "johnny doe", "john@example.com", LocalDateTime.now(ZoneOffset.UTC), null);
+            changeLog.recordUser(kept.getId());
+            return null;
+        });
+        delete(deleted.getId(), LocalDateTime.now(ZoneOffset.UTC));
+
+        // Act
+        UserChangePageDTO page = changeFeedService.getChanges(null, 10);
+
+        // Assert
+        assertThat(page.getChanges()).extracting(UserChangeDTO::getType)
+                .containsExactly(UserChangeDTO.Type.UPDATED, UserChangeDTO.Type.DELETED);
+        assertThat(page.getChanges().get(0).getUser().getName()).isEqualTo("Johnny Doe");
+        assertThat(page.getChanges().get(1).getId()).isEqualTo(deleted.getId());
+        assertThat(page.isHasMore()).isFalse();
+    }
+
+    @Test
+    void testGetChanges_ResumesAfterCursor() {
+        // Arrange
+        User first = create("John Doe", "john@example.com");
+        User second = create("Jane Doe", "jane@example.com");
+
+        // Act
+        UserChangePageDTO firstPage = changeFeedService.getChanges(null, 1);
+        UserChangePageDTO secondPage = changeFeedService.getChanges(firstPage.getNextCursor(), 1);
+        UserChangePageDTO caughtUp = changeFeedService.getChanges(secondPage.getNextCursor(), 1);
+
+        // Assert
+        assertThat(firstPage.getChanges()).extracting(UserChangeDTO::getId).containsExactly(first.getId());
+        assertThat(firstPage.getChanges().get(0).getType()).isEqualTo(UserChangeDTO.Type.CREATED);
+        assertThat(firstPage.getChanges().get(0).getCursor()).isEqualTo(firstPage.getNextCursor());
+        assertThat(firstPage.isHasMore()).isTrue();
+        assertThat(secondPage.getChanges()).extracting(UserChangeDTO::getId).containsExactly(second.getId());
+        assertThat(caughtUp.getChanges()).isEmpty();
+        assertThat(caughtUp.getNextCursor()).isNotNull();
+    }
+
+    @Test
+    void testGetChanges_ServesAWriteThatCommitsAfterALaterOne() throws Exception {
+        // Arrange
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<User> slow = CompletableFuture.supplyAsync(() -> write(() -> {
+            User user = userRepository.saveAndFlush(new User("Slow Writer", "slow@example.com", null));
+            changeLog.recordUser(user.getId());
+            written.countDown();
+            await(release);
+            return user;
+        }));
+        assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+        User fast = create("Fast Writer", "fast@example.com");
+        UserChangePageDTO before = changeFeedService.getChanges(null, 10);
+
+        // Act
+        release.countDown();
+        User late = slow.get(5, TimeUnit.SECONDS);
+        UserChangePageDTO after = changeFeedService.getChanges(before.getNextCursor(), 10);
+
+        // Assert
+        assertThat(before.getChanges()).extracting(UserChangeDTO::getId).containsExactly(fast.getId());
+        assertThat(after.getChanges()).extracting(UserChangeDTO::getId).containsExactly(late.getId());
+    }
+
+    @Test
+    void testGetChanges_RejectsExpiredAndMalformedCursors() {
+        // Arrange
+        String expired = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("1:" + LocalDateTime.now(ZoneOffset.UTC).minusDays(9)).getBytes(StandardCharsets.UTF_8));
+
+        // Act & Assert
+        assertThatThrownBy(() -> changeFeedService.getChanges(expired, 10)).isInstanceOf(ResourceGoneException.class);
+        assertThatThrownBy(() -> changeFeedService.getChanges("not-a-cursor", 10)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void testGetChanges_ReplaysFromTheStartForARecentTimestampCursor() {
+        // Arrange
+        User user = create("John Doe", "john@example.com");
+        String legacy = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((user.getId() + ":" + LocalDateTime.now()).getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        UserChangePageDTO page = changeFeedService.getChanges(legacy, 10);
+
+        // Assert
+        assertThat(page.getChanges()).extracting(UserChangeDTO::getId).containsExactly(user.getId());
+    }
+
+    @Test
+    void testPurgeTombstones_RemovesOldOnesInChunksAndExpiresCursorsBehindThem() {
+        // Arrange
+        String origin = changeFeedService.currentCursor();
+        LocalDateTime old = LocalDateTime.now(ZoneOffset.UTC).minusDays(8);
+        for (int i = 0; i < 3; i++) {
+            delete(create("Old User", "old" + i + "@example.com").getId(), old);
+        }
+        User recent = create("Recent User", "recent@example.com");
+        delete(recent.getId(), LocalDateTime.now(ZoneOffset.UTC));
+
+        // Act
+        changeFeedService.purgeTombstones();
+
+        // Assert
+        assertThat(tombstoneRepository.findAll()).extracting(tombstone -> tombstone.getUserId()).containsExactly(recent.getId());
+        assertThatThrownBy(() -> changeFeedService.getChanges(origin, 10)).isInstanceOf(ResourceGoneException.class);
+        assertThat(changeFeedService.getChanges(null, 10).getChanges()).extracting(UserChangeDTO::getId)
+                .containsExactly(recent.getId());
+    }
+
+    @Test
+    void testBackfill_ConvertsLegacyStampsToUtcAndNumbersThem() {
+        // Arrange
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        LocalDateTime local = LocalDateTime.of(2026, 7, 1, 12, 0);
+        jdbc.update("insert into users (id, name, email, created_at, updated_at, version) values (9001, 'Old User', 'old@example.com', ?, ?, 3)",
+                local, local);
+        jdbc.update("insert into user_tombstones (user_id, deleted_at) values (9002, ?)", local);
+        UserChangeBackfill backfill = new UserChangeBackfill(userRepository, tombstoneRepository, changeLog, shards,
+                "Europe/Paris", 1);
+
+        // Act
+        long backfilled = backfill.backfill();
+
+        // Assert
+        assertThat(backfilled).isEqualTo(2);
+        List<UserChangeDTO> changes = changeFeedService.getChanges(null, 10).getChanges();
+        assertThat(changes).extracting(UserChangeDTO::getId).containsExactlyInAnyOrder(9001L, 9002L);
+        assertThat(changes).extracting(UserChangeDTO::getChangedAt).containsOnly(LocalDateTime.of(2026, 7, 1, 10, 0));
+        assertThat(backfill.backfill()).isZero();
+    }
+
+    private User create(String name, String email) {
+        return write(() -> {
+            User user = userRepository.saveAndFlush(new User(name, email, null));
+            changeLog.recordUser(user.getId());
+            return user;
+        });
+    }
+
+    private void delete(Long id, LocalDateTime deletedAt) {
+        write(() -> {
+            userRepository.insertTombstones(List.of(id), deletedAt);
+            userRepository.deleteUserById(id);
+            changeLog.recordTombstones(List.of(id));
+            return null;
+        });
+    }
+
+    private <T> T write(Supplier<T> work) {
+        return transaction.execute(status -> work.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.dto.BatchItemResultDTO;
+import com.example.usercrud.dto.BatchResultDTO;
+import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.exception.DuplicateEmailException;
+import com.example.usercrud.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserCreateQueueTest {
+
+    private final UserService userService = mock(UserService.class);
+    private final ObjectProvider<UserService> userServiceProvider = provider(userService);
+    private UserCreateQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void testConcurrentCreatesShareOneGroupAndGetTheirOwnResult() throws Exception {
+        // Arrange
+        queue = new UserCreateQueue(userServiceProvider, true, 10, 2, Duration.ofSeconds(5), Duration.ofSeconds(5));
+        UserDTO first = new UserDTO(null, "John Doe", "john@example.com", null);
+        UserDTO second = new UserDTO(null, "Jane Doe", "john@example.com", null);
+        // Whichever arrives first wins the email, as createUsers would decide
+        when(userService.createUsers(anyList())).thenAnswer(invocation -> {
+            List<UserDTO> users = invocation.getArgument(0);
+            return new BatchResultDTO(List.of(
+                    new BatchItemResultDTO(0, BatchItemResultDTO.Status.CREATED, withId(users.get(0), 1L), null),
+                    new BatchItemResultDTO(1, BatchItemResultDTO.Status.CONFLICT, users.get(1), "Email appears more than once in batch")));
+        });
+        queue.start();
+
+        // Act
+        CompletableFuture<UserDTO> firstResult = CompletableFuture.supplyAsync(() -> queue.submit(first));
+        CompletableFuture<UserDTO> secondResult = CompletableFuture.supplyAsync(() -> queue.submit(second));
+
+        // Assert
+        CompletableFuture.allOf(firstResult, secondResult).handle((ignored, e) -> null).get(5, TimeUnit.SECONDS);
+        assertThat(List.of(firstResult, secondResult))
+                .filteredOn(result -> !result.isCompletedExceptionally())
+                .singleElement()
+                .satisfies(result -> assertThat(result.join().getId()).isEqualTo(1L));
+        assertThat(List.of(firstResult, secondResult))
+                .filteredOn(CompletableFuture::isCompletedExceptionally)
+                .singleElement()
+                .satisfies(result -> assertThatThrownBy(result::join).hasCauseInstanceOf(DuplicateEmailException.class));
+        verify(userService, times(1)).createUsers(argThat(users -> users.size() == 2));
+    }
+
+    @Test
+    void testFailedItemFallsBackToASingleInsert() {
+        // Arrange
+        queue = new UserCreateQueue(userServiceProvider, true, 10, 1, Duration.ZERO, Duration.ofSeconds(5));
+        UserDTO user = new UserDTO(null, "John Doe", "john@example.com", null);
+        when(userService.createUsers(anyList())).thenReturn(new BatchResultDTO(List.of(
+                new BatchItemResultDTO(0, BatchItemResultDTO.Status.FAILED, user, "Not stored; the user can be submitted again"))));
+        when(userService.insertUser(user)).thenThrow(new DuplicateEmailException("Email already exists: john@example.com"));
+        queue.start();
+
+        // Act & Assert
+        assertThatThrownBy(() -> queue.submit(user)).isInstanceOf(DuplicateEmailException.class);
+    }
+
+    @Test
+    void testGroupErrorReachesTheCallerWithoutARetry() {
+        // Arrange
+        queue = new UserCreateQueue(userServiceProvider, true, 10, 1, Duration.ZERO, Duration.ofSeconds(5));
+        UserDTO user = new UserDTO(null, "John Doe", "john@example.com", null);
+        when(userService.createUsers(anyList())).thenThrow(new DataAccessResourceFailureException("directory down"));
+        queue.start();
+
+        // Act & Assert
+        assertThatThrownBy(() -> queue.submit(user)).isInstanceOf(DataAccessResourceFailureException.class);
+        verify(userService, never()).insertUser(any());
+    }
+
+    @Test
+    void testSubmitGivesUpAfterMaxWaitWhileStillQueued() {
+        // Arrange
+        queue = new UserCreateQueue(userServiceProvider, true, 10, 1, Duration.ZERO, Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        when(userService.createUsers(anyList())).thenAnswer(invocation -> {
+            release.await();
+            List<UserDTO> users = invocation.getArgument(0);
+            return new BatchResultDTO(List.of(
+                    new BatchItemResultDTO(0, BatchItemResultDTO.Status.CREATED, withId(users.get(0), 1L), null)));
+        });
+        queue.start();
+        // Holds the writer, so the next create stays queued
+        CompletableFuture<UserDTO> first = CompletableFuture.supplyAsync(
+                () -> queue.submit(new UserDTO(null, "John Doe", "john@example.com", null)));
+
+        try {
+            // Act & Assert
+            verify(userService, timeout(5000)).createUsers(anyList());
+            assertThatThrownBy(() -> queue.submit(new UserDTO(null, "Jane Doe", "jane@example.com", null)))
+                    .isInstanceOf(ServiceOverloadedException.class);
+        } finally {
+            release.countDown();
+        }
+        assertThat(first.join().getId()).isEqualTo(1L);
+        verify(userService, times(1)).createUsers(anyList());
+    }
+
+    @Test
+    void testSubmitWaitsPastMaxWaitForAGroupBeingWritten() {
+        // Arrange
+        queue = new UserCreateQueue(userServiceProvider, true, 10, 1, Duration.ZERO, Duration.ofMillis(20));
+        when(userService.createUsers(anyList())).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            List<UserDTO> users = invocation.getArgument(0);
+            return new BatchResultDTO(List.of(
+                    new BatchItemResultDTO(0, BatchItemResultDTO.Status.CREATED, withId(users.get(0), 1L), null)));
+        });
+        queue.start();
+
+        // Act
+        UserDTO created = queue.submit(new UserDTO(null, "John Doe", "john@example.com", null));
+
+        // Assert
+        assertThat(created.getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void testSubmitIsRejectedWhenNotRunning() {
+        // Arrange
+        queue = new UserCreateQueue(userServiceProvider, true, 10, 1, Duration.ZERO, Duration.ofSeconds(5));
+
+        // Act & Assert
+        assertThatThrownBy(() -> queue.submit(new UserDTO(null, "John Doe", "john@example.com", null)))
+                .isInstanceOf(ServiceOverloadedException.class);
+    }
+
+    private UserDTO withId(UserDTO user, Long id) {
+        return new UserDTO(id, user.getName(), user.getEmail(), user.getPhone(), 0L);
+    }
+
+    private static ObjectProvider<UserService> provider(UserService userService) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("userService", userService);
+        return beanFactory.getBeanProvider(UserService.class);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.usercrud.service;
+
+import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.exception.DuplicateEmailException;
+import com.example.usercrud.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserOperationMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private UserService target;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        target = mock(UserService.class);
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new UserOperationMetrics(registry));
+        userService = proxyFactory.getProxy();
+    }
+
+    @Test
+    void testTime_TagsOperationAndOutcome() {
+        // Arrange
+        UserDTO userDTO = new UserDTO(1L, "John Doe", "john@example.com", "1234567890");
+        when(target.getUserById(1L)).thenReturn(userDTO);
+        when(target.getUserById(2L)).thenThrow(new ResourceNotFoundException("User not found with id: 2"));
+        when(target.createUser(any(UserDTO.class))).thenThrow(new DuplicateEmailException("Email already exists"));
+
+        // Act
+        userService.getUserById(1L);
+        assertThatThrownBy(() -> userService.getUserById(2L)).isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> userService.createUser(userDTO)).isInstanceOf(DuplicateEmailException.class);
+
+        // Assert
+        assertThat(registry.get("user.operation").tags("operation", "getUserById", "outcome", "ok").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("user.operation").tags("operation", "getUserById", "outcome", "not_found").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("user.operation").tags("operation", "createUser", "outcome", "duplicate").timer().count())
+                .isEqualTo(1);
+    }
+}
@@ -1,24 +1,53 @@
 package com.example.usercrud.service;
 
+import com.example.usercrud.cache.EmailBloomFilter;
+import com.example.usercrud.cache.LocalUserInvalidationBus;
+import com.example.usercrud.cache.UserCache;
+import com.example.usercrud.cache.UserInvalidation;
+import com.example.usercrud.cache.UserPrefixIndex;
+import com.example.usercrud.dto.BatchItemResultDTO;
+import com.example.usercrud.dto.BatchResultDTO;
 import com.example.usercrud.dto.UserDTO;
+import com.example.usercrud.dto.UserPageDTO;
 import com.example.usercrud.entity.User;
+import com.example.usercrud.exception.BadRequestException;
 import com.example.usercrud.exception.DuplicateEmailException;
+import com.example.usercrud.exception.PreconditionFailedException;
 import com.example.usercrud.exception.ResourceNotFoundException;
+import com.example.usercrud.exception.ValidationFailedException;
 import com.example.usercrud.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +56,30 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Spy
+    private UserCache userCache = new UserCache(100, Duration.ofMinutes(5), new LocalUserInvalidationBus());
+
+    @Spy
+    private EmailBloomFilter emailFilter = new EmailBloomFilter(null, new LocalUserInvalidationBus(), true, 1000, 0.01);
+
+    @Spy
+    private UserPrefixIndex prefixIndex = new UserPrefixIndex(null, new LocalUserInvalidationBus(), false);
+
+    @Spy
+    private UserCreateQueue createQueue = new UserCreateQueue(null, false, 1, 1, Duration.ZERO, Duration.ofSeconds(5));
+
+    @Spy
+    private UserShards shards = new UserShards(false, List.of(), mock(PlatformTransactionManager.class));
+
+    @Mock
+    private UserChangeLog changeLog;
+
     @InjectMocks
     private UserService userService;
 
@@ -47,8 +100,7 @@ class UserServiceTest {
     @Test
     void testCreateUser_Success() {
         // Arrange
-        when(userRepository.existsByEmail(userDTO.getEmail())).thenReturn(false);
-        when(userRepository.save(any(User.class))).thenReturn(user);
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(user);
 
         // Act
         UserDTO createdUser = userService.createUser(userDTO);
@@ -57,13 +109,16 @@ class UserServiceTest {
         assertThat(createdUser).isNotNull();
         assertThat(createdUser.getName()).isEqualTo("John Doe");
         assertThat(createdUser.getEmail()).isEqualTo("john@example.com");
-        verify(userRepository, times(1)).save(any(User.class));
+        verify(userRepository, times(1)).saveAndFlush(any(User.class));
+        verify(userRepository, never()).existsByEmail(any());
+        verify(emailFilter).add("john@example.com");
     }
 
     @Test
     void testCreateUser_DuplicateEmail() {
         // Arrange
-        when(userRepository.existsByEmail(userDTO.getEmail())).thenReturn(true);
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("Duplicate entry", new SQLException("Duplicate entry"), "users.uk_users_email")));
 
         // Act & Assert
         assertThatThrownBy(() -> userService.createUser(userDTO))
@@ -71,26 +126,234 @@ class UserServiceTest {
                 .hasMessageContaining("Email already exists");
     }
 
+    @Test
+    void testCreateUser_UniqueConstraintNamedOnlyInMessage() {
+        // Arrange
+        when(userRepository.saveAndFlush(any(User.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry for key 'users.uk_users_email'"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> userService.createUser(userDTO))
+                .isInstanceOf(DuplicateEmailException.class)
+                .hasMessageContaining("Email already exists");
+    }
+
+    @Test
+    void testCreateUser_OtherConstraintViolationIsNotADuplicate() {
+        // Arrange
+        when(userRepository.saveAndFlush(any(User.class)))
+                .thenThrow(new DataIntegrityViolationException("NULL not allowed for column 'name'"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> userService.createUser(userDTO))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void testCreateUsers_ReportsPerItemOutcome() {
+        // Arrange
+        UserDTO existing = new UserDTO(null, "Jane Doe", "jane@example.com", "0987654321");
+        UserDTO invalid = new UserDTO(null, "J", "not-an-email", null);
+        UserDTO repeated = new UserDTO(null, "Johnny", "JOHN@example.com", null);
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of("jane@example.com"));
+        when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(u -> u.setId(10L));
+            return users;
+        });
+
+        // Act
+        BatchResultDTO result = userService.createUsers(List.of(userDTO, existing, invalid, repeated));
+
+        // Assert
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getConflicts()).isEqualTo(2);
+        assertThat(result.getInvalid()).isEqualTo(1);
+        assertThat(result.getResults()).extracting(BatchItemResultDTO::getStatus).containsExactly(
+                BatchItemResultDTO.Status.CREATED,
+                BatchItemResultDTO.Status.CONFLICT,
+                BatchItemResultDTO.Status.INVALID,
+                BatchItemResultDTO.Status.CONFLICT);
+        assertThat(result.getResults().get(0).getUser().getId()).isEqualTo(10L);
+        verify(userRepository, times(1)).findExistingEmails(anyCollection());
+        verify(userRepository, times(1)).flush();
+    }
+
+    @Test
+    void testCreateUsers_RacedRowFallsBackToSingleInserts() {
+        // Arrange
+        UserDTO raced = new UserDTO(null, "Jane Doe", "jane@example.com", null);
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+        when(userRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException(
+                "Duplicate entry for key 'users.uk_users_email'"));
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(user).thenThrow(
+                new DataIntegrityViolationException("Duplicate entry for key 'users.uk_users_email'"));
+
+        // Act
+        BatchResultDTO result = userService.createUsers(List.of(userDTO, raced));
+
+        // Assert
+        assertThat(result.getResults()).extracting(BatchItemResultDTO::getStatus).containsExactly(
+                BatchItemResultDTO.Status.CREATED,
+                BatchItemResultDTO.Status.CONFLICT);
+        assertThat(result.getResults().get(0).getUser().getId()).isEqualTo(1L);
+        verify(userRepository, times(2)).saveAndFlush(any(User.class));
+        verify(emailFilter).add("john@example.com");
+        verify(emailFilter, never()).add("jane@example.com");
+    }
+
+    @Test
+    void testCreateUsers_ErrorAfterAStoredRowReportsTheRestAsFailed() {
+        // Arrange
+        UserDTO unlucky = new UserDTO(null, "Jane Doe", "jane@example.com", null);
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+        when(userRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException(
+                "Duplicate entry for key 'users.uk_users_email'"));
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(user).thenThrow(
+                new DataAccessResourceFailureException("Connection lost"));
+
+        // Act
+        BatchResultDTO result = userService.createUsers(List.of(userDTO, unlucky));
+
+        // Assert
+        assertThat(result.getResults()).extracting(BatchItemResultDTO::getStatus).containsExactly(
+                BatchItemResultDTO.Status.CREATED,
+                BatchItemResultDTO.Status.FAILED);
+        assertThat(result.getResults().get(0).getUser().getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void testCreateUsers_EmptyBatch() {
+        // Act & Assert
+        assertThatThrownBy(() -> userService.createUsers(List.of()))
+                .isInstanceOf(BadRequestException.class);
+    }
+
     @Test
     void testGetAllUsers() {
         // Arrange
-        User user2 = new User("Jane Doe", "jane@example.com", "0987654321");
-        user2.setId(2L);
-        when(userRepository.findAll()).thenReturn(Arrays.asList(user, user2));
+        UserDTO john = new UserDTO(1L, "John Doe", "john@example.com", "1234567890");
+        UserDTO jane = new UserDTO(2L, "Jane Doe", "jane@example.com", "0987654321");
+        when(userRepository.findDtoPageAfter(0L, Limit.of(21))).thenReturn(Arrays.asList(john, jane));
 
         // Act
-        List<UserDTO> users = userService.getAllUsers();
+        UserPageDTO page = userService.getAllUsers(null, 20);
 
         // Assert
+        List<UserDTO> users = page.getUsers();
         assertThat(users).hasSize(2);
         assertThat(users.get(0).getName()).isEqualTo("John Doe");
         assertThat(users.get(1).getName()).isEqualTo("Jane Doe");
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void testGetAllUsers_NextCursorResumesAfterLastId() {
+        // Arrange
+        UserDTO john = new UserDTO(1L, "John Doe", "john@example.com", "1234567890");
+        UserDTO jane = new UserDTO(2L, "Jane Doe", "jane@example.com", "0987654321");
+        UserDTO bob = new UserDTO(3L, "Bob Smith", "bob@example.com", "1111111111");
+        when(userRepository.findDtoPageAfter(0L, Limit.of(3))).thenReturn(Arrays.asList(john, jane, bob));
+        when(userRepository.findDtoPageAfter(eq(2L), any(Limit.class))).thenReturn(List.of(bob));
+
+        // Act
+        UserPageDTO firstPage = userService.getAllUsers(null, 2);
+        UserPageDTO secondPage = userService.getAllUsers(firstPage.getNextCursor(), 2);
+
+        // Assert
+        assertThat(firstPage.getUsers()).hasSize(2);
+        assertThat(firstPage.getNextCursor()).isNotNull();
+        assertThat(secondPage.getUsers()).extracting(UserDTO::getId).containsExactly(3L);
+        assertThat(secondPage.getNextCursor()).isNull();
+    }
+
+    @Test
+    void testGetAllUsers_PageSizeIsCapped() {
+        // Arrange
+        when(userRepository.findDtoPageAfter(0L, Limit.of(UserService.MAX_PAGE_SIZE + 1))).thenReturn(List.of(userDTO));
+
+        // Act
+        UserPageDTO page = userService.getAllUsers(null, 10_000);
+
+        // Assert
+        assertThat(page.getUsers()).hasSize(1);
+    }
+
+    @Test
+    void testGetAllUsers_InvalidCursor() {
+        // Act & Assert
+        assertThatThrownBy(() -> userService.getAllUsers("not-a-cursor", 20))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Invalid cursor");
+    }
+
+    @Test
+    void testSearchUsers_DatabasePathEscapesPrefixAndPagesByKey() {
+        // Arrange
+        UserDTO john = new UserDTO(1L, "John Doe", "john@example.com", "1234567890");
+        UserDTO jon = new UserDTO(3L, "Jon_Snow", "jon@example.com", null);
+        when(userRepository.searchByNamePrefix("jo!_%", "", 0L, Limit.of(2))).thenReturn(List.of(john, jon));
+        when(userRepository.searchByNamePrefix("jo!_%", "john doe", 1L, Limit.of(2))).thenReturn(List.of());
+
+        // Act
+        UserPageDTO firstPage = userService.searchUsers(" JO_", "name", null, 1);
+        UserPageDTO secondPage = userService.searchUsers("jo_", "name", firstPage.getNextCursor(), 1);
+
+        // Assert
+        assertThat(firstPage.getUsers()).extracting(UserDTO::getId).containsExactly(1L);
+        assertThat(firstPage.getNextCursor()).isNotNull();
+        assertThat(secondPage.getUsers()).isEmpty();
+        assertThat(secondPage.getNextCursor()).isNull();
+    }
+
+    @Test
+    void testSearchUsers_IndexPathDropsStaleEntries() {
+        // Arrange
+        doReturn(true).when(prefixIndex).isReady();
+        doReturn(List.of(new UserPrefixIndex.Entry("john@example.com", 1L), new UserPrefixIndex.Entry("johnny@example.com", 2L)))
+                .when(prefixIndex).search(UserPrefixIndex.Field.EMAIL, "john", "", 0L, 21);
+        when(userRepository.findDtosByIdIn(List.of(1L, 2L))).thenReturn(List.of(
+                new UserDTO(1L, "John Doe", "john@example.com", null),
+                new UserDTO(2L, "Johnny", "renamed@example.com", null)));
+
+        // Act
+        UserPageDTO page = userService.searchUsers("John", "email", null, 20);
+
+        // Assert
+        assertThat(page.getUsers()).extracting(UserDTO::getId).containsExactly(1L);
+        assertThat(page.getNextCursor()).isNull();
+        verify(userRepository, never()).searchByEmailPrefix(any(), any(), any(), any());
+    }
+
+    @Test
+    void testSearchUsers_RejectsBlankQueryAndUnknownField() {
+        // Act & Assert
+        assertThatThrownBy(() -> userService.searchUsers("  ", "name", null, 20))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> userService.searchUsers("jo", "phone", null, 20))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("name or email");
+    }
+
+    @Test
+    void testExportUsers_StreamsProjectedRows() {
+        // Arrange
+        UserDTO john = new UserDTO(1L, "John Doe", "john@example.com", "1234567890");
+        UserDTO jane = new UserDTO(2L, "Jane Doe", "jane@example.com", "0987654321");
+        when(userRepository.streamAllDtosOrderedById()).thenReturn(Stream.of(john, jane));
+        List<UserDTO> exported = new ArrayList<>();
+
+        // Act
+        userService.exportUsers(exported::add);
+
+        // Assert
+        assertThat(exported).extracting(UserDTO::getEmail).containsExactly("john@example.com", "jane@example.com");
     }
 
     @Test
     void testGetUserById_Success() {
         // Arrange
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.of(new UserDTO(1L, "John Doe", "john@example.com", "1234567890")));
 
         // Act
         UserDTO foundUser = userService.getUserById(1L);
@@ -100,10 +363,64 @@ class UserServiceTest {
         assertThat(foundUser.getName()).isEqualTo("John Doe");
     }
 
+    @Test
+    void testGetUserById_ServedFromCacheAfterFirstLoad() {
+        // Arrange
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.of(new UserDTO(1L, "John Doe", "john@example.com", "1234567890")));
+
+        // Act
+        userService.getUserById(1L);
+        UserDTO cachedUser = userService.getUserById(1L);
+
+        // Assert
+        assertThat(cachedUser.getName()).isEqualTo("John Doe");
+        verify(userRepository, times(1)).findDtoById(1L);
+        verify(userRepository, never()).findById(1L);
+    }
+
+    @Test
+    void testGetUserByEmail_SharesCacheEntryWithLookupById() {
+        // Arrange
+        when(userRepository.findDtoByEmailNormalized("john@example.com"))
+                .thenReturn(Optional.of(new UserDTO(1L, "John Doe", "john@example.com", "1234567890", 0L)));
+
+        // Act
+        userService.getUserByEmail("John@Example.com");
+        UserDTO byEmail = userService.getUserByEmail("john@example.com");
+        UserDTO byId = userService.getUserById(1L);
+
+        // Assert
+        assertThat(byEmail.getId()).isEqualTo(1L);
+        assertThat(byId).isSameAs(byEmail);
+        verify(userRepository, times(1)).findDtoByEmailNormalized("john@example.com");
+        verify(userRepository, never()).findDtoById(any());
+    }
+
+    @Test
+    void testUpdateUser_EvictsCachedUser() {
+        // Arrange
+        UserDTO updateDTO = new UserDTO(null, "Updated Name", "john@example.com", "9999999999");
+        when(userRepository.updateById(eq(1L), eq("Updated Name"), eq("john@example.com"), eq("9999999999"),
+                eq("updated name"), eq("john@example.com"), any(LocalDateTime.class), isNull())).thenReturn(1);
+        when(userRepository.findDtoById(1L)).thenReturn(
+                Optional.of(new UserDTO(1L, "John Doe", "john@example.com", "1234567890")),
+                Optional.of(new UserDTO(1L, "Updated Name", "john@example.com", "9999999999")));
+        when(userRepository.findVersionById(1L)).thenReturn(Optional.of(2L));
+        userService.getUserById(1L);
+
+        // Act
+        userService.updateUser(1L, updateDTO);
+        UserDTO reloadedUser = userService.getUserById(1L);
+
+        // Assert
+        assertThat(reloadedUser.getName()).isEqualTo("Updated Name");
+        verify(userCache).evict(1L, 2L, "john@example.com");
+    }
+
     @Test
     void testGetUserById_NotFound() {
         // Arrange
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThatThrownBy(() -> userService.getUserById(1L))
@@ -119,21 +436,78 @@ class UserServiceTest {
         updateDTO.setEmail("john@example.com");
         updateDTO.setPhone("9999999999");
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(userRepository.save(any(User.class))).thenReturn(user);
+        when(userRepository.updateById(eq(1L), eq("Updated Name"), eq("john@example.com"), eq("9999999999"),
+                eq("updated name"), eq("john@example.com"), any(LocalDateTime.class), eq(3L))).thenReturn(1);
 
         // Act
-        UserDTO updatedUser = userService.updateUser(1L, updateDTO);
+        UserDTO updatedUser = userService.updateUser(1L, updateDTO, 3L);
 
         // Assert
-        assertThat(updatedUser).isNotNull();
-        verify(userRepository, times(1)).save(any(User.class));
+        assertThat(updatedUser.getId()).isEqualTo(1L);
+        assertThat(updatedUser.getName()).isEqualTo("Updated Name");
+        assertThat(updatedUser.getVersion()).isEqualTo(4L);
+        verify(userRepository, never()).findById(any());
+        verify(userRepository, never()).findVersionById(any());
+        verify(userRepository, never()).existsByEmail(any());
+    }
+
+    @Test
+    void testUpdateUser_WithoutIfMatchReadsBackVersion() {
+        // Arrange
+        when(userRepository.updateById(eq(1L), any(), any(), any(), any(), any(), any(), isNull())).thenReturn(1);
+        when(userRepository.findVersionById(1L)).thenReturn(Optional.of(7L));
+
+        // Act
+        UserDTO updatedUser = userService.updateUser(1L, userDTO);
+
+        // Assert
+        assertThat(updatedUser.getVersion()).isEqualTo(7L);
+        verify(userRepository, times(1)).findVersionById(1L);
+    }
+
+    @Test
+    void testUpdateUser_VersionMismatch() {
+        // Arrange
+        when(userRepository.updateById(eq(1L), any(), any(), any(), any(), any(), any(), eq(3L))).thenReturn(0);
+        when(userRepository.findVersionById(1L)).thenReturn(Optional.of(4L));
+
+        // Act & Assert
+        assertThatThrownBy(() -> userService.updateUser(1L, userDTO, 3L))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessageContaining("not the expected 3");
+        verify(userCache, never()).evict(eq(1L), any(), any());
+    }
+
+    @Test
+    void testGetUserVersion_UsesCacheBeforeQuery() {
+        // Arrange
+        when(userRepository.findDtoById(1L)).thenReturn(
+                Optional.of(new UserDTO(1L, "John Doe", "john@example.com", "1234567890", 2L)));
+        userService.getUserById(1L);
+
+        // Act
+        Long version = userService.getUserVersion(1L);
+
+        // Assert
+        assertThat(version).isEqualTo(2L);
+        verify(userRepository, never()).findVersionById(1L);
+    }
+
+    @Test
+    void testGetUserVersion_NotFound() {
+        // Arrange
+        when(userRepository.findVersionById(1L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThatThrownBy(() -> userService.getUserVersion(1L))
+                .isInstanceOf(ResourceNotFoundException.class);
     }
 
     @Test
     void testUpdateUser_NotFound() {
         // Arrange
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(userRepository.updateById(eq(1L), any(), any(), any(), any(), any(), any(), any())).thenReturn(0);
+        when(userRepository.findVersionById(1L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThatThrownBy(() -> userService.updateUser(1L, userDTO))
@@ -149,8 +523,8 @@ class UserServiceTest {
         updateDTO.setEmail("newemail@example.com");
         updateDTO.setPhone("1234567890");
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(userRepository.existsByEmail("newemail@example.com")).thenReturn(true);
+        when(userRepository.updateById(eq(1L), any(), eq("newemail@example.com"), any(), any(), any(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry for key 'users.uk_users_email'"));
 
         // Act & Assert
         assertThatThrownBy(() -> userService.updateUser(1L, updateDTO))
@@ -158,23 +532,97 @@ class UserServiceTest {
                 .hasMessageContaining("Email already exists");
     }
 
+    @Test
+    void testPatchUser_AppliesOnlyPresentFields() throws Exception {
+        // Arrange
+        user.setVersion(3L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.saveAndFlush(user)).thenAnswer(invocation -> {
+            user.setVersion(4L);
+            return user;
+        });
+
+        // Act
+        UserDTO patchedUser = userService.patchUser(1L,
+                new ObjectMapper().readTree("{\"phone\":\"5550001111\"}"), 3L);
+
+        // Assert
+        assertThat(patchedUser.getName()).isEqualTo("John Doe");
+        assertThat(patchedUser.getPhone()).isEqualTo("5550001111");
+        assertThat(patchedUser.getVersion()).isEqualTo(4L);
+        verify(userCache).evict(1L, 4L, "john@example.com");
+    }
+
+    @Test
+    void testPatchUser_NullClearsOptionalField() throws Exception {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.saveAndFlush(user)).thenReturn(user);
+
+        // Act
+        UserDTO patchedUser = userService.patchUser(1L, new ObjectMapper().readTree("{\"phone\":null}"), null);
+
+        // Assert
+        assertThat(patchedUser.getPhone()).isNull();
+    }
+
+    @Test
+    void testPatchUser_UnchangedValuesSkipWrite() throws Exception {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        // Act
+        UserDTO patchedUser = userService.patchUser(1L,
+                new ObjectMapper().readTree("{\"name\":\"John Doe\",\"phone\":\"1234567890\"}"), null);
+
+        // Assert
+        assertThat(patchedUser.getName()).isEqualTo("John Doe");
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+        verify(userCache, never()).evict(eq(1L), any(), any());
+    }
+
+    @Test
+    void testPatchUser_RejectsInvalidResult() throws Exception {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        // Act & Assert
+        assertThatThrownBy(() -> userService.patchUser(1L, new ObjectMapper().readTree("{\"name\":null}"), null))
+                .isInstanceOfSatisfying(ValidationFailedException.class,
+                        e -> assertThat(e.getErrors()).containsKey("name"));
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+    }
+
+    @Test
+    void testPatchUser_RejectsUnknownField() throws Exception {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        // Act & Assert
+        assertThatThrownBy(() -> userService.patchUser(1L, new ObjectMapper().readTree("{\"id\":7}"), null))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Field cannot be patched: id");
+    }
+
     @Test
     void testDeleteUser_Success() {
         // Arrange
-        when(userRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(userRepository).deleteById(1L);
+        when(userRepository.insertTombstones(eq(List.of(1L)), any(LocalDateTime.class))).thenReturn(1);
+        when(userRepository.deleteUserById(1L)).thenReturn(1);
 
         // Act
         userService.deleteUser(1L);
 
         // Assert
-        verify(userRepository, times(1)).deleteById(1L);
+        verify(userRepository, never()).existsById(any());
+        verify(userCache).evict(1L, UserInvalidation.DELETED, null);
+        verify(eventPublisher).publishEvent(any(UsersChangedEvent.class));
     }
 
     @Test
     void testDeleteUser_NotFound() {
         // Arrange
-        when(userRepository.existsById(1L)).thenReturn(false);
+        when(userRepository.insertTombstones(eq(List.of(1L)), any(LocalDateTime.class))).thenReturn(0);
 
         // Act & Assert
         assertThatThrownBy(() -> userService.deleteUser(1L))